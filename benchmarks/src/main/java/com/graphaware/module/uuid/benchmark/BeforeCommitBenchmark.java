@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.benchmark;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+import com.graphaware.module.uuid.UuidModule;
+import com.graphaware.runtime.policy.all.IncludeAllBusinessRelationships;
+import org.neo4j.graphdb.Entity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives {@link UuidModule#beforeCommit} with {@link SyntheticTransactionData}, so that the cost of the module is
+ * measured in isolation from the cost of Neo4j storage.
+ * <p/>
+ * {@code created} and {@code changed} are numbers of entities of each kind (nodes and, with {@code relationships},
+ * relationships) in the transaction. Deleted entities are not read by the module, so they are not part of the data. {@code uuidChangeRatio} is the fraction of changed entities
+ * whose UUID has been modified; the module is configured to allow that, so that such transactions don't roll back.
+ * Every created entity receives a UUID in every invocation.
+ * <p/>
+ * The module and the transaction data are shared by all benchmark threads, so that the largest transactions fit in the
+ * heap regardless of the thread count; concurrent invocations replay the same data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BeforeCommitBenchmark {
+
+    @Param({"1", "1000", "1000000"})
+    public int created;
+
+    @Param({"0", "1000", "1000000"})
+    public int changed;
+
+    @Param({"0", "0.5"})
+    public double uuidChangeRatio;
+
+    @Param({"false", "true"})
+    public boolean relationships;
+
+    private UuidModule module;
+    private SyntheticTransactionData data;
+    private List<Entity> touched;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UuidConfiguration configuration = UuidConfiguration.defaultConfiguration().withImmutability(false);
+        if (relationships) {
+            configuration = configuration.with(IncludeAllBusinessRelationships.getInstance());
+        }
+
+        module = new UuidModule("UIDM", configuration);
+        module.start(null);
+
+        data = SyntheticTransactionData.create(created, changed, uuidChangeRatio, relationships, configuration.getUuidProperty());
+        touched = data.touchedEntities();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        module.shutdown();
+    }
+
+    @Benchmark
+    public long beforeCommit() {
+        module.beforeCommit(data.transactionData());
+        return data.writes();
+    }
+
+    /**
+     * Only reads the uuid property of all touched entities, without the module. Approximates the stand-in overhead
+     * included in {@link #beforeCommit()}.
+     */
+    @Benchmark
+    public void baseline(Blackhole blackhole) {
+        for (Entity entity : touched) {
+            blackhole.consume(entity.hasProperty("uuid"));
+        }
+    }
+}
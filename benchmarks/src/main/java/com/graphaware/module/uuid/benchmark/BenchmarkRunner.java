@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the selected benchmarks (all by default) once for each of 1, 8, 32 and 64 threads, with the GC profiler
+ * reporting allocation per operation. Results are written as JSON to {@code target/jmh-<threads>-threads.json}, so that
+ * they can be compared across builds.
+ * <p/>
+ * Accepts the standard JMH command line options, e.g. {@code java -jar target/benchmarks.jar UuidGeneratorBenchmark
+ * -p generator=UuidV7Generator}. If threads are given by {@code -t}, only that thread count is run.
+ */
+public final class BenchmarkRunner {
+
+    private static final int[] THREADS = {1, 8, 32, 64};
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        int[] threads = commandLine.getThreads().hasValue() ? new int[]{commandLine.getThreads().get()} : THREADS;
+
+        new File("target").mkdirs();
+
+        for (int threadCount : threads) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threadCount)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-" + threadCount + "-threads.json");
+
+            if (commandLine.getIncludes().isEmpty()) {
+                options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+            }
+
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.benchmark;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+import com.graphaware.module.uuid.generator.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of generating a single 64-bit ID with {@link SnowflakeIdGenerator}, for comparison with
+ * {@link UuidGeneratorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class LongIdGeneratorBenchmark {
+
+    private SnowflakeIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new SnowflakeIdGenerator();
+        generator.configure(UuidConfiguration.defaultConfiguration());
+    }
+
+    @Benchmark
+    public long generateId() {
+        return generator.generateId();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.benchmark;
+
+import com.graphaware.common.util.Change;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds {@link ImprovedTransactionData} and entity stand-ins backed by plain maps, so that the module can be driven
+ * without a database and without paying for storage.
+ * <p/>
+ * The stand-ins are {@link Proxy dynamic proxies}, which adds a small, constant cost to every call made by the module;
+ * see {@link BeforeCommitBenchmark#baseline} for a way to measure it. Property writes are counted but not applied, so
+ * that the same transaction data can be replayed in every benchmark invocation, also by several threads at once.
+ */
+final class SyntheticTransactionData {
+
+    private final Map<String, Object> lists = new HashMap<>();
+    private final Map<Entity, Set<String>> changedKeys = new IdentityHashMap<>();
+    private final ImprovedTransactionData transactionData;
+    private final LongAdder writes = new LongAdder();
+
+    private SyntheticTransactionData() {
+        transactionData = (ImprovedTransactionData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ImprovedTransactionData.class}, (proxy, method, args) -> {
+            String name = method.getName();
+
+            if (name.startsWith("getAll")) {
+                Object list = lists.get(name.substring("getAll".length()));
+                if (list != null) {
+                    return list;
+                }
+            }
+
+            if ("hasPropertyBeenChanged".equals(name)) {
+                return changedKeys.getOrDefault(args[0], Collections.emptySet()).contains(args[1]);
+            }
+
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    /**
+     * Create synthetic transaction data.
+     *
+     * @param created          number of created entities of each kind (without a UUID).
+     * @param changed          number of changed entities of each kind (all with a UUID).
+     * @param uuidChangeRatio  fraction of the changed entities, whose UUID has been changed by the transaction.
+     * @param relationships    whether to create relationships in addition to nodes.
+     * @param uuidProperty     key of the UUID property.
+     * @return transaction data.
+     */
+    static SyntheticTransactionData create(int created, int changed, double uuidChangeRatio, boolean relationships, String uuidProperty) {
+        SyntheticTransactionData data = new SyntheticTransactionData();
+
+        data.populate("Nodes", Node.class, created, changed, uuidChangeRatio, uuidProperty);
+
+        if (relationships) {
+            data.populate("Relationships", Relationship.class, created, changed, uuidChangeRatio, uuidProperty);
+        } else {
+            data.populate("Relationships", Relationship.class, 0, 0, 0, uuidProperty);
+        }
+
+        return data;
+    }
+
+    /**
+     * @return the transaction data stand-in.
+     */
+    ImprovedTransactionData transactionData() {
+        return transactionData;
+    }
+
+    /**
+     * @return all created entities, followed by the current versions of all changed entities, for iteration without the
+     * module.
+     */
+    @SuppressWarnings("unchecked")
+    List<Entity> touchedEntities() {
+        List<Entity> result = new ArrayList<>();
+
+        for (String kind : new String[]{"Nodes", "Relationships"}) {
+            result.addAll((Collection<Entity>) lists.get("Created" + kind));
+            for (Change<Entity> change : (Collection<Change<Entity>>) lists.get("Changed" + kind)) {
+                result.add(change.getCurrent());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return number of property writes made so far.
+     */
+    long writes() {
+        return writes.sum();
+    }
+
+    private <E extends Entity> void populate(String kind, Class<E> type, int created, int changed, double uuidChangeRatio, String uuidProperty) {
+        List<E> createdEntities = new ArrayList<>(created);
+        List<Change<E>> changedEntities = new ArrayList<>(changed);
+        long id = 0;
+
+        for (int i = 0; i < created; i++) {
+            createdEntities.add(entity(type, id++, Collections.singletonMap("name", "entity" + i)));
+        }
+
+        int uuidChanges = (int) Math.round(changed * uuidChangeRatio);
+        for (int i = 0; i < changed; i++) {
+            Map<String, Object> previous = new HashMap<>();
+            previous.put("name", "entity" + i);
+            previous.put(uuidProperty, "6ba7b810-9dad-11d1-80b4-00c04fd430c8");
+
+            Map<String, Object> current = new HashMap<>(previous);
+            current.put("name", "changed" + i);
+            Set<String> keys = Collections.singleton("name");
+            if (i < uuidChanges) {
+                current.put(uuidProperty, "6ba7b811-9dad-11d1-80b4-00c04fd430c8");
+                keys = new HashSet<>(Arrays.asList("name", uuidProperty));
+            }
+
+            E currentEntity = entity(type, id, current);
+            changedKeys.put(currentEntity, keys);
+            changedEntities.add(new Change<>(entity(type, id, previous), currentEntity));
+            id++;
+        }
+
+        lists.put("Created" + kind, createdEntities);
+        lists.put("Changed" + kind, changedEntities);
+        lists.put("Deleted" + kind, Collections.emptyList());
+    }
+
+    private <E extends Entity> E entity(Class<E> type, long id, Map<String, Object> properties) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hasProperty":
+                    return properties.containsKey(args[0]);
+                case "getProperty":
+                    Object value = properties.get(args[0]);
+                    return value != null || args.length == 1 ? value : args[1];
+                case "setProperty":
+                    writes.increment();
+                    return null;
+                case "getId":
+                    return id;
+                case "hashCode":
+                    return Long.hashCode(id);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + "[" + id + "]";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (Set.class.isAssignableFrom(type)) {
+            return Collections.emptySet();
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return Collections.emptyList();
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return Collections.emptyMap();
+        }
+        return null;
+    }
+}
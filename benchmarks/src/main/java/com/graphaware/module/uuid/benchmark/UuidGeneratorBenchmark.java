@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.benchmark;
+
+import com.graphaware.common.uuid.UuidGenerator;
+import com.graphaware.module.uuid.UuidConfiguration;
+import com.graphaware.module.uuid.format.CompactUuidFormat;
+import com.graphaware.module.uuid.generator.UuidConfigurationAware;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of generating a single UUID string, including hyphen stripping, as paid by a committing thread.
+ * The number of threads is given by the runner, see {@link BenchmarkRunner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class UuidGeneratorBenchmark {
+
+    /**
+     * Fully qualified class name, or simple name of a class in {@code com.graphaware.module.uuid.generator}.
+     */
+    @Param({
+            "com.graphaware.common.uuid.EaioUuidGenerator",
+            "JavaUtilUUIDGenerator",
+            "StripedSecureRandomUuidGenerator",
+            "FastRandomUuidGenerator",
+            "UuidV7Generator",
+            "ShardedUuidGenerator",
+            "UlidGenerator"
+    })
+    public String generator;
+
+    @Param({"false", "true"})
+    public boolean stripHyphens;
+
+    private UuidGenerator uuidGenerator;
+
+    @Setup
+    public void setUp() throws Exception {
+        uuidGenerator = instantiate(generator);
+    }
+
+    @Benchmark
+    public String generateUuid() {
+        String uuid = uuidGenerator.generateUuid();
+
+        if (stripHyphens) {
+            return CompactUuidFormat.INSTANCE.format(uuid);
+        }
+
+        return uuid;
+    }
+
+    static UuidGenerator instantiate(String generator) throws Exception {
+        String className = generator.contains(".") ? generator : "com.graphaware.module.uuid.generator." + generator;
+        UuidGenerator uuidGenerator = (UuidGenerator) Class.forName(className).getDeclaredConstructor().newInstance();
+
+        if (uuidGenerator instanceof UuidConfigurationAware) {
+            ((UuidConfigurationAware) uuidGenerator).configure(UuidConfiguration.defaultConfiguration());
+        }
+
+        return uuidGenerator;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.benchmark;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+import com.graphaware.module.uuid.UuidTransactionEventListener;
+import com.graphaware.runtime.bootstrap.RuntimeExtensionFactory;
+import com.graphaware.runtime.policy.all.IncludeAllBusinessRelationships;
+import com.graphaware.test.integration.GraphAwareNeo4jBuilder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures committed write transactions per second and commit latency of an embedded database, with and without the
+ * UUID module, to establish the true overhead of the module on an ingest path.
+ * <p/>
+ * {@code mode} is one of {@code off} (no GraphAware runtime), {@code runtime} (GraphAware runtime without modules),
+ * {@code default} (UUID module with default configuration), {@code relationships} (UUID module assigning UUIDs to
+ * relationships as well), and {@code listener} and {@code listener-relationships}, which are the same as the latter
+ * two, but deployed as a {@link UuidTransactionEventListener} without the GraphAware runtime. Every transaction touches {@code batchSize} nodes; a fraction {@code updateRatio} of them are
+ * updates of nodes owned by the benchmark thread, the rest are created and connected to the previously created node.
+ * <p/>
+ * Results are written as JSON by {@link BenchmarkRunner}; one operation is one committed transaction.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class WriteThroughputBenchmark {
+
+    private static final Label PERSON = Label.label("Person");
+    private static final RelationshipType KNOWS = RelationshipType.withName("KNOWS");
+    private static final int NODES_PER_THREAD = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"off", "runtime", "default", "relationships", "listener", "listener-relationships"})
+        public String mode;
+
+        private Neo4j neo4j;
+        private GraphDatabaseService database;
+        private UuidTransactionEventListener listener;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            GraphAwareNeo4jBuilder builder = GraphAwareNeo4jBuilder.builder(Neo4jBuilders.newInProcessBuilder()).withDisabledServer();
+
+            if (!"off".equals(mode) && !mode.startsWith("listener")) {
+                builder = builder
+                        .withExtensionFactories(new ArrayList<>(Collections.singleton(new RuntimeExtensionFactory())))
+                        .withGAConfig("com.graphaware.runtime.enabled", "true");
+            }
+
+            switch (mode) {
+                case "off":
+                case "runtime":
+                case "listener":
+                case "listener-relationships":
+                    break;
+                case "relationships":
+                    builder = builder.withGAConfig("com.graphaware.module.neo4j.UIDM.relationship", "com.graphaware.runtime.policy.all.IncludeAllBusinessRelationships");
+                    // fall through
+                case "default":
+                    builder = builder.withGAConfig("com.graphaware.module.neo4j.UIDM.1", "com.graphaware.module.uuid.UuidBootstrapper");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+
+            neo4j = builder.build();
+            database = neo4j.defaultDatabaseService();
+
+            if (mode.startsWith("listener")) {
+                UuidConfiguration configuration = UuidConfiguration.defaultConfiguration();
+                if (mode.endsWith("relationships")) {
+                    configuration = configuration.with(IncludeAllBusinessRelationships.getInstance());
+                }
+                listener = UuidTransactionEventListener.register(neo4j.databaseManagementService(), database.databaseName(), configuration);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (listener != null) {
+                neo4j.databaseManagementService().unregisterTransactionEventListener(database.databaseName(), listener);
+                listener.close();
+            }
+
+            neo4j.close();
+        }
+    }
+
+    /**
+     * Nodes updated by a single benchmark thread, so that threads never contend for the same locks.
+     */
+    @State(Scope.Thread)
+    public static class Workload {
+
+        @Param({"1", "100"})
+        public int batchSize;
+
+        @Param({"0", "0.5"})
+        public double updateRatio;
+
+        private final SplittableRandom random = new SplittableRandom();
+        private final long[] nodeIds = new long[NODES_PER_THREAD];
+        private long counter;
+
+        @Setup(Level.Trial)
+        public void setUp(Database database) {
+            try (Transaction tx = database.database.beginTx()) {
+                for (int i = 0; i < NODES_PER_THREAD; i++) {
+                    Node node = tx.createNode(PERSON);
+                    node.setProperty("name", "existing" + i);
+                    nodeIds[i] = node.getId();
+                }
+                tx.commit();
+            }
+        }
+    }
+
+    @Benchmark
+    public void commit(Database database, Workload workload) {
+        try (Transaction tx = database.database.beginTx()) {
+            Node previous = null;
+
+            for (int i = 0; i < workload.batchSize; i++) {
+                long value = workload.counter++;
+
+                if (workload.random.nextDouble() < workload.updateRatio) {
+                    tx.getNodeById(workload.nodeIds[workload.random.nextInt(NODES_PER_THREAD)]).setProperty("updated", value);
+                } else {
+                    Node node = tx.createNode(PERSON);
+                    node.setProperty("name", "person" + value);
+
+                    if (previous != null) {
+                        previous.createRelationshipTo(node, KNOWS);
+                    }
+
+                    previous = node;
+                }
+            }
+
+            tx.commit();
+        }
+    }
+}
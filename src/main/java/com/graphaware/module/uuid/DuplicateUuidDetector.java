@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.runtime.module.DeliberateTransactionRollbackException;
+
+/**
+ * Detects UUIDs assigned more than once, see {@link UuidConfiguration#withDuplicateDetection(int)}. Values are parsed
+ * to their 128 bits and kept in a per-thread {@link UuidSet} for the duration of a transaction; once the transaction
+ * commits, they are moved to a shared {@link RecentUuids} window. Transactions are bound to threads and are called back
+ * on the committing thread, so the per-thread set always belongs to the transaction being committed.
+ * <p/>
+ * Concurrent transactions only see each other's UUIDs once committed, so this isn't a substitute for a uniqueness
+ * constraint.
+ */
+final class DuplicateUuidDetector {
+
+    private static final int EXPECTED_TRANSACTION_SIZE = 64;
+
+    private final String uuidProperty;
+    private final UuidValueGenerator valueGenerator;
+    private final RecentUuids recentUuids;
+    private final ThreadLocal<TransactionUuids> transactionUuids = ThreadLocal.withInitial(TransactionUuids::new);
+
+    DuplicateUuidDetector(UuidConfiguration configuration, UuidValueGenerator valueGenerator) {
+        this.uuidProperty = configuration.getUuidProperty();
+        this.valueGenerator = valueGenerator;
+        this.recentUuids = configuration.getDuplicateWindow() > 0 ? new RecentUuids(configuration.getDuplicateWindow()) : null;
+    }
+
+    /**
+     * Start a transaction on the current thread, forgetting the UUIDs of a previous transaction that might not have
+     * been completed, e.g. because it was rolled back by another listener before this one got to it.
+     */
+    void begin() {
+        transactionUuids.get().uuids.clear();
+    }
+
+    /**
+     * Check a value about to be assigned by the transaction on the current thread.
+     *
+     * @param value of the uuid property. Values that can't be parsed aren't checked.
+     * @throws DeliberateTransactionRollbackException if the value has already been assigned by the transaction or is
+     *                                                among the recently committed ones.
+     */
+    void check(Object value) {
+        TransactionUuids current = transactionUuids.get();
+        long[] bits = current.bits;
+
+        if (!valueGenerator.parse(value, bits, 0)) {
+            return;
+        }
+
+        if (!current.uuids.add(bits[0], bits[1]) || recentUuids != null && recentUuids.contains(bits[0], bits[1])) {
+            throw new DeliberateTransactionRollbackException(UuidValueGenerator.describe(value) + " is a duplicate value of the " + uuidProperty + " property");
+        }
+    }
+
+    /**
+     * Complete a committed transaction on the current thread, moving its UUIDs to the window of recent ones.
+     */
+    void committed() {
+        UuidSet uuids = transactionUuids.get().uuids;
+
+        if (recentUuids != null) {
+            uuids.addTo(recentUuids);
+        }
+
+        uuids.clear();
+    }
+
+    /**
+     * Complete a rolled back transaction on the current thread.
+     */
+    void rolledBack() {
+        transactionUuids.get().uuids.clear();
+    }
+
+    private static final class TransactionUuids {
+
+        private final UuidSet uuids = new UuidSet(EXPECTED_TRANSACTION_SIZE);
+        private final long[] bits = new long[2];
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import org.neo4j.graphdb.Entity;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size buffer of entities waiting for a UUID, meant to be held per thread and reused across transactions.
+ * Entities are {@link #add(Entity, Writer) added} one by one while the transaction data is iterated; whenever the chunk
+ * is full, values are generated for all of its entities in one batch and handed to a {@link Writer}, after which the
+ * chunk starts over. The memory needed to assign UUIDs is thus bounded by the chunk size, no matter how many entities
+ * a transaction creates.
+ */
+final class EntityChunk {
+
+    /**
+     * Writes a generated value to an entity.
+     *
+     * @param <X> type of exception thrown by the writer.
+     */
+    @FunctionalInterface
+    interface Writer<X extends Exception> {
+
+        void write(Entity entity, Object uuid) throws X;
+    }
+
+    private final UuidValueGenerator valueGenerator;
+    private final Entity[] entities;
+    private int size;
+
+    EntityChunk(UuidValueGenerator valueGenerator, int capacity) {
+        this.valueGenerator = valueGenerator;
+        this.entities = new Entity[capacity];
+    }
+
+    /**
+     * Add an entity, flushing the chunk if it becomes full.
+     *
+     * @param entity to assign a UUID to.
+     * @param writer to flush the chunk with.
+     */
+    <X extends Exception> void add(Entity entity, Writer<X> writer) throws X {
+        entities[size++] = entity;
+
+        if (size == entities.length) {
+            flush(writer);
+        }
+    }
+
+    /**
+     * Generate values for all entities in the chunk, write them and empty the chunk.
+     *
+     * @param writer to write the values with.
+     */
+    <X extends Exception> void flush(Writer<X> writer) throws X {
+        int count = size;
+
+        if (count == 0) {
+            return;
+        }
+
+        Object[] uuids = null;
+
+        try {
+            uuids = valueGenerator.generate(entities, count);
+
+            for (int i = 0; i < count; i++) {
+                writer.write(entities[i], uuids[i]);
+            }
+        } finally {
+            if (uuids != null) {
+                Arrays.fill(uuids, 0, count, null);
+            }
+            clear();
+        }
+    }
+
+    /**
+     * Empty the chunk without writing anything, e.g. when the transaction is about to be rolled back.
+     */
+    void clear() {
+        Arrays.fill(entities, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns and generates UUIDs on request, on behalf of a started {@link UuidModule} or {@link UuidTransactionEventListener},
+ * most notably to nodes with {@link UuidConfiguration#getLazyLabels() lazy labels}, which those skip when created.
+ * Assigners are registered by the name of the database they are deployed to and the uuid property they manage, which is
+ * how {@link UuidProcedures} finds them, so that deployments to different databases managing the same property don't
+ * replace each other.
+ */
+final class LazyUuidAssigner {
+
+    private static final ConcurrentMap<String, LazyUuidAssigner> ASSIGNERS = new ConcurrentHashMap<>();
+    private static final Entity[] NO_ENTITY = new Entity[1];
+
+    private final String uuidProperty;
+    private final NodeInclusionPolicy nodeInclusionPolicy;
+    private final RelationshipInclusionPolicy relationshipInclusionPolicy;
+    private final UuidValueGenerator valueGenerator;
+    private final Label[] lazyLabels;
+
+    private volatile String key;
+
+    /**
+     * Create an assigner, to be {@link #register(String) registered} once the database it is deployed to is known.
+     *
+     * @param configuration  of the deployment.
+     * @param valueGenerator of the deployment.
+     */
+    LazyUuidAssigner(UuidConfiguration configuration, UuidValueGenerator valueGenerator) {
+        this.uuidProperty = configuration.getUuidProperty();
+        this.nodeInclusionPolicy = configuration.getInclusionPolicies().getNodeInclusionPolicy();
+        this.relationshipInclusionPolicy = configuration.getInclusionPolicies().getRelationshipInclusionPolicy();
+        this.valueGenerator = valueGenerator;
+        this.lazyLabels = configuration.getLazyLabels().stream().map(Label::label).toArray(Label[]::new);
+    }
+
+    /**
+     * Create an assigner and register it, replacing any assigner previously registered for the same database and uuid
+     * property.
+     *
+     * @param databaseName   name of the database the deployment belongs to.
+     * @param configuration  of the deployment.
+     * @param valueGenerator of the deployment.
+     * @return registered assigner.
+     */
+    static LazyUuidAssigner register(String databaseName, UuidConfiguration configuration, UuidValueGenerator valueGenerator) {
+        LazyUuidAssigner assigner = new LazyUuidAssigner(configuration, valueGenerator);
+        assigner.register(databaseName);
+        return assigner;
+    }
+
+    /**
+     * Register this assigner, replacing any assigner previously registered for the same database and uuid property.
+     *
+     * @param databaseName name of the database the deployment belongs to.
+     */
+    void register(String databaseName) {
+        key = key(databaseName, uuidProperty);
+        ASSIGNERS.put(key, this);
+    }
+
+    /**
+     * @return true iff this assigner has been {@link #register(String) registered}.
+     */
+    boolean isRegistered() {
+        return key != null;
+    }
+
+    /**
+     * Unregister this assigner, unless it has been replaced already.
+     */
+    void unregister() {
+        if (key != null) {
+            ASSIGNERS.remove(key, this);
+        }
+    }
+
+    /**
+     * @param databaseName name of the database.
+     * @param uuidProperty managed by the assigner.
+     * @return assigner, {@code null} if there is none.
+     */
+    static LazyUuidAssigner forProperty(String databaseName, String uuidProperty) {
+        return ASSIGNERS.get(key(databaseName, uuidProperty));
+    }
+
+    private static String key(String databaseName, String uuidProperty) {
+        // database names can't contain a slash
+        return databaseName + "/" + uuidProperty;
+    }
+
+    /**
+     * @return true iff the entity should not be assigned a UUID before commit, because it is a node with a lazy label.
+     */
+    boolean isLazy(Entity entity) {
+        if (lazyLabels.length == 0 || !(entity instanceof Node)) {
+            return false;
+        }
+
+        Node node = (Node) entity;
+        for (Label label : lazyLabels) {
+            if (node.hasLabel(label)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the UUID of an entity, assigning (and, once the transaction commits, persisting) one if it has none yet.
+     *
+     * @param tx     transaction the entity belongs to.
+     * @param entity to get the UUID of.
+     * @return UUID, {@code null} if the entity has none and isn't included by the inclusion policies.
+     */
+    Object uuidOf(Transaction tx, Entity entity) {
+        Object uuid = entity.getProperty(uuidProperty, null);
+
+        if (uuid != null || !isIncluded(entity)) {
+            return uuid;
+        }
+
+        // concurrent requests for the same entity wait for the first one, then see its UUID
+        tx.acquireWriteLock(entity);
+        uuid = entity.getProperty(uuidProperty, null);
+
+        if (uuid != null) {
+            return uuid;
+        }
+
+        Object[] uuids = valueGenerator.generate(new Entity[]{entity}, 1);
+        uuid = uuids[0];
+        uuids[0] = null;
+
+        entity.setProperty(uuidProperty, uuid);
+
+        return uuid;
+    }
+
+    /**
+     * Generate a value for the uuid property of an entity that is yet to be created.
+     *
+     * @return generated value.
+     * @throws IllegalStateException if UUIDs are derived from the entities they are assigned to.
+     */
+    Object generate() {
+        if (valueGenerator.derivesFromEntities()) {
+            throw new IllegalStateException("UUIDs in the " + uuidProperty + " property are derived from the entities they are assigned to and can't be generated up front");
+        }
+
+        Object[] uuids = valueGenerator.generate(NO_ENTITY, 1);
+        Object uuid = uuids[0];
+        uuids[0] = null;
+
+        return uuid;
+    }
+
+    private boolean isIncluded(Entity entity) {
+        if (entity instanceof Node) {
+            return nodeInclusionPolicy.include((Node) entity);
+        }
+
+        return relationshipInclusionPolicy.include((Relationship) entity);
+    }
+}
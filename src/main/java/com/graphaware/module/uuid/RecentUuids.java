@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+/**
+ * Bounded window of recently committed UUIDs, used to detect duplicates across transactions. The window is split into
+ * {@link #STRIPES} stripes by the hash of the UUID, each guarded by its own lock, so that concurrent transactions rarely
+ * contend. Each stripe holds two generations of {@link UuidSet}s: once the current generation is full, the previous one
+ * is dropped and the current one takes its place. A stripe thus remembers between one and two generations' worth of
+ * the most recent UUIDs hashed to it, and no per-UUID bookkeeping is needed to evict old ones.
+ */
+final class RecentUuids {
+
+    private static final int STRIPE_BITS = 4;
+
+    static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * @param capacity approximate number of most recent UUIDs to remember.
+     */
+    RecentUuids(int capacity) {
+        int generationSize = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(generationSize);
+        }
+    }
+
+    /**
+     * @param msb most significant bits.
+     * @param lsb least significant bits.
+     * @return true iff the UUID is in the window.
+     */
+    boolean contains(long msb, long lsb) {
+        Stripe stripe = stripe(msb, lsb);
+
+        synchronized (stripe) {
+            return stripe.current.contains(msb, lsb) || stripe.previous.contains(msb, lsb);
+        }
+    }
+
+    /**
+     * Add a UUID to the window, possibly evicting older ones.
+     *
+     * @param msb most significant bits.
+     * @param lsb least significant bits.
+     */
+    void add(long msb, long lsb) {
+        Stripe stripe = stripe(msb, lsb);
+
+        synchronized (stripe) {
+            if (stripe.previous.contains(msb, lsb)) {
+                return;
+            }
+
+            if (stripe.current.add(msb, lsb) && stripe.current.size() >= stripe.generationSize) {
+                UuidSet oldest = stripe.previous;
+                oldest.clear();
+                stripe.previous = stripe.current;
+                stripe.current = oldest;
+            }
+        }
+    }
+
+    private Stripe stripe(long msb, long lsb) {
+        // the top bits of the hash, the sets use the bottom ones
+        return stripes[(int) (UuidSet.hash(msb, lsb) >>> (Long.SIZE - STRIPE_BITS))];
+    }
+
+    private static final class Stripe {
+
+        private final int generationSize;
+        private UuidSet current;
+        private UuidSet previous;
+
+        private Stripe(int generationSize) {
+            this.generationSize = generationSize;
+            this.current = new UuidSet(generationSize);
+            this.previous = new UuidSet(generationSize);
+        }
+    }
+}
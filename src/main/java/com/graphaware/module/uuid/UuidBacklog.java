@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Durable, append-only backlog of entities waiting for a UUID, used for asynchronous assignment.
+ * <p/>
+ * Committing threads collect entity IDs into their {@link Appender}, which appends them as a single record once full
+ * and {@link Appender#sync() syncs} them when the transaction is about to commit. A single consumer
+ * {@link #read(long[]) reads} records in the order they have been appended and {@link #markDrained() marks} them as
+ * drained once their UUIDs have been committed. Records only become readable once the transactions that appended them,
+ * and all transactions that appended before them, have been committed or rolled back, so that the consumer never looks
+ * for entities that aren't visible yet. Records larger than the consumer's buffer, e.g. appended with a larger record
+ * capacity before a restart, are read in parts.
+ * <p/>
+ * The backlog lives in two files: {@value #LOG_FILE}, with records made of an {@code int} count followed by that many
+ * entity IDs (relationship IDs stored as their one's complement), and {@value #OFFSET_FILE}, with the position of the
+ * first record that hasn't been fully drained and the number of its IDs that have. Both survive restarts; a record torn
+ * by a crash is discarded when the backlog is opened. Appends are forced to disk once per transaction and the offset
+ * whenever it moves, before the log is truncated once it has been fully drained, so that a crash never loses or skips
+ * records, but may cause the last drained ones to be read again.
+ */
+final class UuidBacklog implements AutoCloseable {
+
+    static final String LOG_FILE = "uuid-backlog.log";
+    static final String OFFSET_FILE = "uuid-backlog.offset";
+
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final int OFFSET_BYTES = 2 * Long.BYTES;
+
+    private final FileChannel log;
+    private final FileChannel offset;
+    private final int recordCapacity;
+    private final ThreadLocal<Appender> appenders = ThreadLocal.withInitial(Appender::new);
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private final AtomicLong lag = new AtomicLong();
+    private final Object appendLock = new Object();
+    private final ByteBuffer offsetBuffer = ByteBuffer.allocate(OFFSET_BYTES);
+    private final ByteBuffer readBuffer;
+
+    private volatile long size;
+    private long drained;
+    private int drainedIds;
+    private long readEnd;
+    private int readEndIds;
+    private int readCount;
+
+    /**
+     * Open (and create, if needed) a backlog.
+     *
+     * @param directory      to keep the backlog in.
+     * @param recordCapacity maximum number of entity IDs in a single record.
+     */
+    UuidBacklog(Path directory, int recordCapacity) {
+        this.recordCapacity = recordCapacity;
+        this.readBuffer = ByteBuffer.allocateDirect(HEADER_BYTES + recordCapacity * Long.BYTES);
+
+        try {
+            Files.createDirectories(directory);
+            this.log = FileChannel.open(directory.resolve(LOG_FILE), CREATE, READ, WRITE);
+            this.offset = FileChannel.open(directory.resolve(OFFSET_FILE), CREATE, READ, WRITE);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the UUID backlog in " + directory, e);
+        }
+    }
+
+    /**
+     * @return appender of the current thread.
+     */
+    Appender appender() {
+        return appenders.get();
+    }
+
+    /**
+     * Read the oldest IDs that haven't been drained yet, whole records at a time, unless a record doesn't fit into what
+     * is left of the target.
+     *
+     * @param target to read entity IDs into; relationship IDs are read as their one's complement.
+     * @return number of IDs read, 0 if there are no readable records.
+     */
+    int read(long[] target) {
+        long limit = size;
+        Long oldestInFlight = inFlight.isEmpty() ? null : inFlight.first();
+        if (oldestInFlight != null && oldestInFlight < limit) {
+            limit = oldestInFlight;
+        }
+
+        long position = drained;
+        int skipped = drainedIds;
+        int count = 0;
+
+        try {
+            while (count < target.length && position + HEADER_BYTES <= limit) {
+                readBuffer.clear().limit(HEADER_BYTES);
+                readFully(readBuffer, position);
+                int recordCount = readBuffer.getInt(0);
+                int toRead = Math.min(recordCount - skipped, target.length - count);
+
+                readIds(position + HEADER_BYTES + (long) skipped * Long.BYTES, target, count, toRead);
+                count += toRead;
+                skipped += toRead;
+
+                if (skipped < recordCount) {
+                    break;
+                }
+
+                position += HEADER_BYTES + (long) recordCount * Long.BYTES;
+                skipped = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the UUID backlog", e);
+        }
+
+        readEnd = position;
+        readEndIds = skipped;
+        readCount = count;
+        return count;
+    }
+
+    /**
+     * Mark the IDs returned by the last {@link #read(long[])} as drained. The new offset is forced to disk before the
+     * log is truncated, which happens if it has been fully drained.
+     */
+    void markDrained() {
+        try {
+            writeOffset(readEnd, readEndIds);
+
+            synchronized (appendLock) {
+                // no records can be appended until the offset is back at the start of the log
+                if (readEnd == size) {
+                    log.truncate(0);
+                    size = 0;
+                    writeOffset(0, 0);
+                }
+            }
+
+            lag.addAndGet(-readCount);
+            readCount = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to update the UUID backlog offset", e);
+        }
+    }
+
+    /**
+     * Force all appended records and the drained offset to disk.
+     */
+    void force() {
+        try {
+            log.force(false);
+            offset.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to force the UUID backlog", e);
+        }
+    }
+
+    /**
+     * @return number of entity IDs appended but not drained yet.
+     */
+    long lag() {
+        return lag.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        try {
+            force();
+        } finally {
+            try {
+                log.close();
+                offset.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to close the UUID backlog", e);
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        if (offset.size() >= OFFSET_BYTES) {
+            offsetBuffer.clear();
+            readFully(offset, offsetBuffer, 0);
+            drained = offsetBuffer.getLong(0);
+            drainedIds = (int) offsetBuffer.getLong(Long.BYTES);
+        }
+
+        long end = log.size();
+        long position = drained > end ? end : drained;
+        long pending = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        while (position + HEADER_BYTES <= end) {
+            header.clear();
+            log.read(header, position);
+            long next = position + HEADER_BYTES + (long) header.getInt(0) * Long.BYTES;
+            if (next > end) {
+                break;
+            }
+            pending += header.getInt(0);
+            position = next;
+        }
+
+        // discard a record torn by a crash
+        log.truncate(position);
+        if (drained >= position) {
+            drained = position;
+            drainedIds = 0;
+        }
+        size = position;
+        lag.set(pending - drainedIds);
+    }
+
+    private void readIds(long position, long[] target, int offset, int count) throws IOException {
+        int capacity = readBuffer.capacity() / Long.BYTES;
+
+        for (int done = 0; done < count; ) {
+            int batch = Math.min(capacity, count - done);
+
+            readBuffer.clear().limit(batch * Long.BYTES);
+            readFully(readBuffer, position + (long) done * Long.BYTES);
+            for (int i = 0; i < batch; i++) {
+                target[offset + done++] = readBuffer.getLong(i * Long.BYTES);
+            }
+        }
+    }
+
+    private void writeOffset(long position, int ids) throws IOException {
+        offsetBuffer.clear();
+        offsetBuffer.putLong(0, position).putLong(Long.BYTES, ids);
+        writeFully(offset, offsetBuffer, 0);
+        offset.force(false);
+
+        drained = position;
+        drainedIds = ids;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        readFully(log, buffer, position);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of the UUID backlog at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Per-thread builder of records, reused across transactions.
+     */
+    final class Appender {
+
+        private final ByteBuffer record = ByteBuffer.allocateDirect(HEADER_BYTES + recordCapacity * Long.BYTES);
+        private long[] appended = new long[16];
+        private int appendedCount;
+        private int count;
+
+        private Appender() {
+            record.position(HEADER_BYTES);
+        }
+
+        /**
+         * Add a node.
+         */
+        void addNode(long nodeId) {
+            add(nodeId);
+        }
+
+        /**
+         * Add a relationship.
+         */
+        void addRelationship(long relationshipId) {
+            add(~relationshipId);
+        }
+
+        /**
+         * Append the IDs added so far as a single record.
+         */
+        void flush() {
+            if (count == 0) {
+                return;
+            }
+
+            record.putInt(0, count).flip();
+
+            try {
+                synchronized (appendLock) {
+                    long position = size;
+                    inFlight.add(position);
+                    remember(position);
+                    writeFully(log, record, position);
+                    size = position + record.limit();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to append to the UUID backlog", e);
+            }
+
+            lag.addAndGet(count);
+            clear();
+        }
+
+        /**
+         * Append the IDs added so far and force all records appended by the current transaction to disk.
+         */
+        void sync() {
+            flush();
+
+            if (appendedCount == 0) {
+                return;
+            }
+
+            try {
+                log.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to force the UUID backlog", e);
+            }
+        }
+
+        /**
+         * Discard IDs added since the last {@link #flush()}.
+         */
+        void clear() {
+            record.clear().position(HEADER_BYTES);
+            count = 0;
+        }
+
+        /**
+         * Make the records appended by the current transaction readable, once it has been committed or rolled back.
+         */
+        void release() {
+            clear();
+
+            for (int i = 0; i < appendedCount; i++) {
+                inFlight.remove(appended[i]);
+            }
+
+            appendedCount = 0;
+        }
+
+        private void add(long id) {
+            record.putLong(id);
+
+            if (++count == recordCapacity) {
+                flush();
+            }
+        }
+
+        private void remember(long position) {
+            if (appendedCount == appended.length) {
+                appended = Arrays.copyOf(appended, 2 * appended.length);
+            }
+            appended[appendedCount++] = position;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread draining a {@link UuidBacklog} in order, assigning UUIDs to the entities it holds in batched
+ * transactions of up to {@link UuidConfiguration#getChunkSize()} entities. Entities are checked again when drained:
+ * those that have been deleted, are no longer included, have been given a lazy label or a UUID in the meantime are
+ * skipped, which also makes it safe to drain a batch again after a failure or crash.
+ * <p/>
+ * A batch that fails is retried up to {@link #MAX_ATTEMPTS} times in total. After that, its entities are assigned UUIDs
+ * one transaction at a time, and those that still fail are logged, {@link #getFailedCount() counted} and skipped, so
+ * that a single entity can't hold up the backlog forever.
+ */
+final class UuidBacklogWorker implements AutoCloseable {
+
+    private static final Log LOG = LoggerFactory.getLogger(UuidBacklogWorker.class);
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final UuidBacklog backlog;
+    private final GraphDatabaseService database;
+    private final String uuidProperty;
+    private final NodeInclusionPolicy nodeInclusionPolicy;
+    private final RelationshipInclusionPolicy relationshipInclusionPolicy;
+    private final LazyUuidAssigner lazyUuidAssigner;
+    private final long[] ids;
+    private final EntityChunk chunk;
+    private final EntityChunk.Writer<RuntimeException> uuidWriter;
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private final LongAdder failed = new LongAdder();
+    private final Thread drainer;
+
+    private volatile boolean running;
+    private int attempts;
+
+    UuidBacklogWorker(UuidBacklog backlog, GraphDatabaseService database, UuidConfiguration configuration, UuidValueGenerator valueGenerator, LazyUuidAssigner lazyUuidAssigner) {
+        this.backlog = backlog;
+        this.database = database;
+        this.uuidProperty = configuration.getUuidProperty();
+        this.nodeInclusionPolicy = configuration.getInclusionPolicies().getNodeInclusionPolicy();
+        this.relationshipInclusionPolicy = configuration.getInclusionPolicies().getRelationshipInclusionPolicy();
+        this.lazyUuidAssigner = lazyUuidAssigner;
+        this.ids = new long[configuration.getChunkSize()];
+        this.chunk = new EntityChunk(valueGenerator, configuration.getChunkSize());
+        // nodes assigned labels in the transaction that created them may be in the backlog twice
+        this.uuidWriter = (entity, uuid) -> {
+            if (needsUuid(entity)) {
+                entity.setProperty(uuidProperty, uuid);
+            }
+        };
+
+        this.drainer = new Thread(this::drain, "GraphAware-UUID-Backlog-" + database.databaseName());
+        this.drainer.setDaemon(true);
+    }
+
+    /**
+     * Start the background thread.
+     */
+    void start() {
+        running = true;
+        drainer.start();
+    }
+
+    /**
+     * Wake the background thread up, if it is waiting for new records.
+     */
+    void wakeUp() {
+        if (idle.get() && idle.compareAndSet(true, false)) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    /**
+     * @return number of entities skipped because they could not be assigned a UUID.
+     */
+    long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Stop the background thread and wait for the batch being drained, if any. Records left in the backlog are drained
+     * once a worker is started again.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                // nothing is read while the database isn't available, e.g. while it is starting together with a module,
+                // so that batches don't fail, and their entities aren't skipped, for reasons unrelated to them
+                int count = database.isAvailable(0) ? backlog.read(ids) : 0;
+                if (count > 0 && drainBatch(count)) {
+                    backlog.markDrained();
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to drain the UUID backlog, will retry", e);
+            }
+
+            idle.set(true);
+            if (running) {
+                LockSupport.parkNanos(this, MAX_IDLE_NANOS);
+            }
+            idle.set(false);
+        }
+    }
+
+    /**
+     * Assign UUIDs to a batch read from the backlog.
+     *
+     * @return true iff the batch can be marked as drained, false if it should be retried later.
+     */
+    private boolean drainBatch(int count) {
+        try {
+            assignUuids(0, count);
+            attempts = 0;
+            return true;
+        } catch (RuntimeException e) {
+            if (++attempts < MAX_ATTEMPTS) {
+                LOG.warn("Failed to assign UUIDs to " + count + " entities from the backlog, will retry", e);
+                return false;
+            }
+        }
+
+        LOG.warn("Failed to assign UUIDs to %s entities from the backlog %s times, assigning them one by one", count, attempts);
+        attempts = 0;
+
+        for (int i = 0; i < count; i++) {
+            try {
+                assignUuids(i, i + 1);
+            } catch (RuntimeException e) {
+                failed.increment();
+                LOG.error("Failed to assign a UUID to " + (ids[i] >= 0 ? "node " + ids[i] : "relationship " + ~ids[i]) + " from the backlog, skipping it", e);
+            }
+        }
+
+        return true;
+    }
+
+    private void assignUuids(int from, int to) {
+        try (Transaction tx = database.beginTx()) {
+            for (int i = from; i < to; i++) {
+                Entity entity = ids[i] >= 0 ? includedNode(tx, ids[i]) : includedRelationship(tx, ~ids[i]);
+
+                if (entity != null) {
+                    chunk.add(entity, uuidWriter);
+                }
+            }
+
+            chunk.flush(uuidWriter);
+            tx.commit();
+        } finally {
+            chunk.clear();
+        }
+    }
+
+    private Node includedNode(Transaction tx, long id) {
+        try {
+            Node node = tx.getNodeById(id);
+            return needsUuid(node) && nodeInclusionPolicy.include(node) && !lazyUuidAssigner.isLazy(node) ? node : null;
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private Relationship includedRelationship(Transaction tx, long id) {
+        try {
+            Relationship relationship = tx.getRelationshipById(id);
+            return needsUuid(relationship) && relationshipInclusionPolicy.include(relationship) ? relationship : null;
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private boolean needsUuid(Entity entity) {
+        return !entity.hasProperty(uuidProperty);
+    }
+}
@@ -24,6 +24,11 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.lang3.StringUtils;
 import org.neo4j.logging.Log;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Bootstraps the {@link UuidModule} in server mode.
  */
@@ -34,7 +39,21 @@ public class UuidBootstrapper extends BaseModuleBootstrapper<UuidConfiguration>
     private static final String UUID_PROPERTY = "uuidProperty";
     private static final String STRIP_HYPHENS = "stripHyphens";
     private static final String UUID_GENERATOR_CLASS = "uuidGeneratorClass";
+    private static final String UUID_FORMAT = "uuidFormat";
     private static final String IMMUTABLE = "immutable";
+    private static final String POOL_CAPACITY = "poolCapacity";
+    private static final String POOL_LOW_WATER_MARK = "poolLowWaterMark";
+    private static final String STORAGE_TYPE = "storageType";
+    private static final String WORKER_ID = "workerId";
+    private static final String SHARD_ID = "shardId";
+    private static final String CHUNK_SIZE = "chunkSize";
+    private static final String PARALLEL_THRESHOLD = "parallelThreshold";
+    private static final String BACKLOG_DIRECTORY = "backlogDirectory";
+    private static final String LAZY_LABELS = "lazyLabels";
+    private static final String VALIDATE_UUIDS = "validateUuids";
+    private static final String DUPLICATE_WINDOW = "duplicateWindow";
+    private static final String NAME_NAMESPACE = "nameNamespace";
+    private static final String NAME_PROPERTIES = "nameProperties";
 
     /**
      * {@inheritDoc}
@@ -68,6 +87,12 @@ public class UuidBootstrapper extends BaseModuleBootstrapper<UuidConfiguration>
             LOG.info("uuidGenerator set to %s", configuration.getUuidGenerator());
         }
 
+        String uuidFormatString = config.getString(UUID_FORMAT);
+        if (StringUtils.isNotBlank(uuidFormatString)) {
+            configuration = configuration.withUuidFormat(uuidFormatString.trim());
+            LOG.info("uuidFormat set to %s", configuration.getUuidFormat());
+        }
+
         String immutableString = config.getString(IMMUTABLE);
         if (StringUtils.isNotBlank(immutableString)) {
             boolean immutable = Boolean.valueOf(immutableString);
@@ -76,10 +101,126 @@ public class UuidBootstrapper extends BaseModuleBootstrapper<UuidConfiguration>
             logImmutabilityWarning();
         }
 
+        String poolCapacityString = config.getString(POOL_CAPACITY);
+        if (StringUtils.isNotBlank(poolCapacityString)) {
+            int poolCapacity = Integer.parseInt(poolCapacityString.trim());
+            String poolLowWaterMarkString = config.getString(POOL_LOW_WATER_MARK);
+            int poolLowWaterMark = StringUtils.isNotBlank(poolLowWaterMarkString) ? Integer.parseInt(poolLowWaterMarkString.trim()) : poolCapacity / 4;
+            configuration = configuration.withPool(poolCapacity, poolLowWaterMark);
+            LOG.info("UUID pool capacity set to %s, low-water mark set to %s", configuration.getPoolCapacity(), configuration.getPoolLowWaterMark());
+        }
+
+        String storageTypeString = config.getString(STORAGE_TYPE);
+        if (StringUtils.isNotBlank(storageTypeString)) {
+            configuration = configuration.withStorageType(UuidStorageType.valueOf(storageTypeString.trim().toUpperCase()));
+            LOG.info("storageType set to %s", configuration.getStorageType());
+        }
+
+        String workerIdString = config.getString(WORKER_ID);
+        if (StringUtils.isNotBlank(workerIdString)) {
+            configuration = configuration.withWorkerId(Integer.parseInt(workerIdString.trim()));
+            LOG.info("workerId set to %s", configuration.getWorkerId());
+        }
+
+        String shardIdString = config.getString(SHARD_ID);
+        if (StringUtils.isNotBlank(shardIdString)) {
+            configuration = configuration.withShardId(Integer.parseInt(shardIdString.trim()));
+            LOG.info("shardId set to %s", configuration.getShardId());
+        }
+
+        String chunkSizeString = config.getString(CHUNK_SIZE);
+        if (StringUtils.isNotBlank(chunkSizeString)) {
+            configuration = configuration.withChunkSize(Integer.parseInt(chunkSizeString.trim()));
+            LOG.info("chunkSize set to %s", configuration.getChunkSize());
+        }
+
+        String parallelThresholdString = config.getString(PARALLEL_THRESHOLD);
+        if (StringUtils.isNotBlank(parallelThresholdString)) {
+            configuration = configuration.withParallelThreshold(Integer.parseInt(parallelThresholdString.trim()));
+            LOG.info("parallelThreshold set to %s", configuration.getParallelThreshold());
+        }
+
+        String backlogDirectory = config.getString(BACKLOG_DIRECTORY);
+        if (StringUtils.isNotBlank(backlogDirectory)) {
+            configuration = configuration.withAsynchronousAssignment(backlogDirectory.trim());
+            LOG.info("backlogDirectory set to %s, UUIDs will be assigned asynchronously", configuration.getBacklogDirectory());
+        }
+
+        String lazyLabels = config.getString(LAZY_LABELS);
+        if (StringUtils.isNotBlank(lazyLabels)) {
+            configuration = configuration.withLazyLabels(parseList(lazyLabels));
+            LOG.info("lazyLabels set to %s", configuration.getLazyLabels());
+        }
+
+        String validateUuidsString = config.getString(VALIDATE_UUIDS);
+        if (StringUtils.isNotBlank(validateUuidsString)) {
+            configuration = configuration.withUuidValidation(Boolean.parseBoolean(validateUuidsString.trim()));
+            LOG.info("validateUuids set to %s", configuration.shouldValidateUuids());
+        }
+
+        String duplicateWindowString = config.getString(DUPLICATE_WINDOW);
+        if (StringUtils.isNotBlank(duplicateWindowString)) {
+            configuration = configuration.withDuplicateDetection(Integer.parseInt(duplicateWindowString.trim()));
+            LOG.info("duplicateWindow set to %s", configuration.getDuplicateWindow());
+        }
+
+        String nameNamespace = config.getString(NAME_NAMESPACE);
+        if (StringUtils.isNotBlank(nameNamespace)) {
+            configuration = configuration.withNameBasedUuids(nameNamespace.trim(), parseNameProperties(config.getString(NAME_PROPERTIES)));
+            LOG.info("nameNamespace set to %s, nameProperties set to %s", configuration.getNameNamespace(), configuration.getNameProperties());
+        }
+
         return new UuidModule(moduleId, configuration);
     }
 
     private void logImmutabilityWarning() {
         LOG.warn("Immutability has been disabled by the configuration. Such setting might have a negative impact on the consistency of your data.");
     }
+
+    /**
+     * Parse name properties in the form {@code Label:property1,property2;OtherLabel:property}.
+     *
+     * @param nameProperties to parse, can be blank.
+     * @return property keys by label/relationship type.
+     */
+    private static Map<String, List<String>> parseNameProperties(String nameProperties) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+
+        if (StringUtils.isBlank(nameProperties)) {
+            return result;
+        }
+
+        for (String entry : nameProperties.split(";")) {
+            if (StringUtils.isBlank(entry)) {
+                continue;
+            }
+
+            String[] labelAndProperties = entry.split(":", 2);
+            if (labelAndProperties.length != 2 || StringUtils.isBlank(labelAndProperties[0])) {
+                throw new IllegalArgumentException("Invalid " + NAME_PROPERTIES + " entry '" + entry + "', expected Label:property1,property2");
+            }
+
+            result.put(labelAndProperties[0].trim(), parseList(labelAndProperties[1]));
+        }
+
+        return result;
+    }
+
+    /**
+     * Parse a comma-separated list, ignoring blank elements.
+     *
+     * @param list to parse.
+     * @return trimmed elements.
+     */
+    private static List<String> parseList(String list) {
+        List<String> result = new ArrayList<>();
+
+        for (String element : list.split(",")) {
+            if (StringUtils.isNotBlank(element)) {
+                result.add(element.trim());
+            }
+        }
+
+        return result;
+    }
 }
@@ -16,35 +16,94 @@
 package com.graphaware.module.uuid;
 
 import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.none.IncludeNoNodes;
 import com.graphaware.common.policy.inclusion.none.IncludeNoRelationships;
+import com.graphaware.module.uuid.format.UuidFormats;
+import com.graphaware.module.uuid.generator.ShardedUuidGenerator;
+import com.graphaware.module.uuid.generator.SnowflakeIdGenerator;
 import com.graphaware.runtime.config.BaseModuleConfiguration;
 import com.graphaware.runtime.config.ModuleConfiguration;
 import com.graphaware.runtime.policy.InclusionPoliciesFactory;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
 
 /**
  * {@link ModuleConfiguration} for {@link com.graphaware.module.uuid.UuidModule}.
  */
 public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration> {
 
-    private static final String DEFAULT_UUID_GENERATOR = "com.graphaware.common.uuid.EaioUuidGenerator";
+    static final String DEFAULT_UUID_GENERATOR = "com.graphaware.common.uuid.EaioUuidGenerator";
 
     private static final String DEFAULT_UUID_PROPERTY = Properties.UUID;
     private static final boolean DEFAULT_STRIP_HYPHENS = false;
     private static final boolean DEFAULT_IMMUTABLE = true;
+    private static final int DEFAULT_POOL_CAPACITY = 0;
+    private static final int DEFAULT_POOL_LOW_WATER_MARK = 0;
+    private static final UuidStorageType DEFAULT_STORAGE_TYPE = UuidStorageType.STRING;
+    private static final int DEFAULT_WORKER_ID = 0;
+    private static final String DEFAULT_UUID_FORMAT = UuidFormats.CANONICAL;
+    private static final String DEFAULT_NAME_NAMESPACE = null;
+    private static final Map<String, List<String>> DEFAULT_NAME_PROPERTIES = Collections.emptyMap();
+    private static final int DEFAULT_SHARD_ID = 0;
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 0;
+    private static final String DEFAULT_BACKLOG_DIRECTORY = null;
+    private static final Set<String> DEFAULT_LAZY_LABELS = Collections.emptySet();
+    private static final boolean DEFAULT_VALIDATE_UUIDS = false;
+    private static final int DEFAULT_DUPLICATE_WINDOW = -1;
+
+    /**
+     * Largest number of entities the module assigns UUIDs to in one go, see {@link #withChunkSize(int)}.
+     */
+    public static final int MAX_CHUNK_SIZE = 8192;
 
     private final String uuidGenerator;
     private final String uuidProperty;
     private final boolean stripHyphens;
     private final boolean immutable;
+    private final int poolCapacity;
+    private final int poolLowWaterMark;
+    private final UuidStorageType storageType;
+    private final int workerId;
+    private final String uuidFormat;
+    private final String nameNamespace;
+    private final Map<String, List<String>> nameProperties;
+    private final int shardId;
+    private final int chunkSize;
+    private final int parallelThreshold;
+    private final String backlogDirectory;
+    private final Set<String> lazyLabels;
+    private final boolean validateUuids;
+    private final int duplicateWindow;
 
-
-    private UuidConfiguration(InclusionPolicies inclusionPolicies, String uuidGenerator, String uuidProperty, boolean stripHyphens, boolean immutable) {
+    private UuidConfiguration(InclusionPolicies inclusionPolicies, String uuidGenerator, String uuidProperty, boolean stripHyphens, boolean immutable, int poolCapacity, int poolLowWaterMark, UuidStorageType storageType, int workerId, String uuidFormat, String nameNamespace, Map<String, List<String>> nameProperties, int shardId, int chunkSize, int parallelThreshold, String backlogDirectory, Set<String> lazyLabels, boolean validateUuids, int duplicateWindow) {
         super(inclusionPolicies);
         this.uuidGenerator = uuidGenerator;
         this.uuidProperty = uuidProperty;
         this.stripHyphens = stripHyphens;
         this.immutable = immutable;
+        this.poolCapacity = poolCapacity;
+        this.poolLowWaterMark = poolLowWaterMark;
+        this.storageType = storageType;
+        this.workerId = workerId;
+        this.uuidFormat = uuidFormat;
+        this.nameNamespace = nameNamespace;
+        this.nameProperties = nameProperties;
+        this.shardId = shardId;
+        this.chunkSize = chunkSize;
+        this.parallelThreshold = parallelThreshold;
+        this.backlogDirectory = backlogDirectory;
+        this.lazyLabels = lazyLabels;
+        this.validateUuids = validateUuids;
+        this.duplicateWindow = duplicateWindow;
     }
 
     /**
@@ -58,7 +117,7 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
         return new UuidConfiguration(InclusionPoliciesFactory
                 .allBusiness()
                 .with(IncludeNoRelationships.getInstance())
-                , DEFAULT_UUID_GENERATOR, DEFAULT_UUID_PROPERTY, DEFAULT_STRIP_HYPHENS, DEFAULT_IMMUTABLE);
+                , DEFAULT_UUID_GENERATOR, DEFAULT_UUID_PROPERTY, DEFAULT_STRIP_HYPHENS, DEFAULT_IMMUTABLE, DEFAULT_POOL_CAPACITY, DEFAULT_POOL_LOW_WATER_MARK, DEFAULT_STORAGE_TYPE, DEFAULT_WORKER_ID, DEFAULT_UUID_FORMAT, DEFAULT_NAME_NAMESPACE, DEFAULT_NAME_PROPERTIES, DEFAULT_SHARD_ID, DEFAULT_CHUNK_SIZE, DEFAULT_PARALLEL_THRESHOLD, DEFAULT_BACKLOG_DIRECTORY, DEFAULT_LAZY_LABELS, DEFAULT_VALIDATE_UUIDS, DEFAULT_DUPLICATE_WINDOW);
     }
 
     /**
@@ -66,7 +125,7 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
      */
     @Override
     protected UuidConfiguration newInstance(InclusionPolicies inclusionPolicies) {
-        return new UuidConfiguration(inclusionPolicies, getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable());
+        return new UuidConfiguration(inclusionPolicies, getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
     }
 
     public String getUuidGenerator() {
@@ -85,6 +144,121 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
         return immutable;
     }
 
+    public int getPoolCapacity() {
+        return poolCapacity;
+    }
+
+    public int getPoolLowWaterMark() {
+        return poolLowWaterMark;
+    }
+
+    public boolean isPooled() {
+        return poolCapacity > 0;
+    }
+
+    /**
+     * @return false iff the node inclusion policy is {@link IncludeNoNodes}, i.e. nodes never need to be processed.
+     */
+    public boolean includesNodes() {
+        return !(getInclusionPolicies().getNodeInclusionPolicy() instanceof IncludeNoNodes);
+    }
+
+    /**
+     * @return false iff the relationship inclusion policy is {@link IncludeNoRelationships}, i.e. relationships never
+     * need to be processed.
+     */
+    public boolean includesRelationships() {
+        return !(getInclusionPolicies().getRelationshipInclusionPolicy() instanceof IncludeNoRelationships);
+    }
+
+    public UuidStorageType getStorageType() {
+        return storageType;
+    }
+
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    public String getNameNamespace() {
+        return nameNamespace;
+    }
+
+    public Map<String, List<String>> getNameProperties() {
+        return nameProperties;
+    }
+
+    public int getShardId() {
+        return shardId;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * @return directory of the backlog used for asynchronous assignment, {@code null} if UUIDs are assigned synchronously.
+     */
+    public String getBacklogDirectory() {
+        return backlogDirectory;
+    }
+
+    /**
+     * @return true iff UUIDs are assigned asynchronously, after commit, see {@link #withAsynchronousAssignment(String)}.
+     */
+    public boolean isAsynchronous() {
+        return backlogDirectory != null;
+    }
+
+    /**
+     * @return labels of nodes that are only assigned a UUID on request, see {@link #withLazyLabels(Collection)}.
+     */
+    public Set<String> getLazyLabels() {
+        return lazyLabels;
+    }
+
+    /**
+     * @return true iff UUIDs supplied by clients for new entities are validated, see {@link #withUuidValidation(boolean)}.
+     */
+    public boolean shouldValidateUuids() {
+        return validateUuids;
+    }
+
+    /**
+     * @return true iff transactions assigning duplicate UUIDs are rolled back, see {@link #withDuplicateDetection(int)}.
+     */
+    public boolean detectsDuplicates() {
+        return duplicateWindow >= 0;
+    }
+
+    /**
+     * @return number of recently committed UUIDs new UUIDs are checked against, see {@link #withDuplicateDetection(int)}.
+     */
+    public int getDuplicateWindow() {
+        return duplicateWindow;
+    }
+
+    /**
+     * @return name of the configured {@link com.graphaware.module.uuid.format.UuidFormat}, as passed to {@link #withUuidFormat(String)}.
+     */
+    public String getConfiguredUuidFormat() {
+        return uuidFormat;
+    }
+
+    /**
+     * @return name of the {@link com.graphaware.module.uuid.format.UuidFormat} to use, taking {@link #shouldStripHyphens()} into account.
+     */
+    public String getUuidFormat() {
+        if (stripHyphens && UuidFormats.CANONICAL.equals(uuidFormat)) {
+            return UuidFormats.COMPACT;
+        }
+
+        return uuidFormat;
+    }
+
     /**
      * Create a new instance of this {@link UuidConfiguration} with different uuid generator.
      *
@@ -92,7 +266,7 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
      * @return new instance.
      */
     public UuidConfiguration withUuidGenerator(String uuidGenerator) {
-        return new UuidConfiguration(getInclusionPolicies(), uuidGenerator, getUuidProperty(), shouldStripHyphens(), getImmutable());
+        return new UuidConfiguration(getInclusionPolicies(), uuidGenerator, getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
     }
 
     /**
@@ -102,7 +276,7 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
      * @return new instance.
      */
     public UuidConfiguration withUuidProperty(String uuidProperty) {
-        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), uuidProperty, shouldStripHyphens(), getImmutable());
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), uuidProperty, shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
     }
 
     /**
@@ -112,7 +286,7 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
      * @return new instance.
      */
     public UuidConfiguration withStripHyphensProperty(boolean stripHyphens) {
-        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), stripHyphens, getImmutable());
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), stripHyphens, getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
     }
 
     /**
@@ -122,7 +296,174 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
      * @return new instance.
      */
     public UuidConfiguration withImmutability(boolean immutability) {
-        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), immutability);
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), immutability, getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} that pre-generates UUIDs into a pool of the given
+     * capacity, refilled in the background once the number of available UUIDs drops to the low-water mark.
+     *
+     * @param poolCapacity     maximum number of pre-generated UUIDs, 0 to disable pooling.
+     * @param poolLowWaterMark number of available UUIDs at which the pool is refilled, must be lower than the capacity.
+     * @return new instance.
+     */
+    public UuidConfiguration withPool(int poolCapacity, int poolLowWaterMark) {
+        if (poolCapacity < 0 || poolLowWaterMark < 0 || (poolCapacity > 0 && poolLowWaterMark >= poolCapacity)) {
+            throw new IllegalArgumentException("Invalid UUID pool settings, capacity: " + poolCapacity + ", low-water mark: " + poolLowWaterMark);
+        }
+
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), poolCapacity, poolLowWaterMark, getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with a different type of the stored uuid property.
+     *
+     * @param storageType of the new instance.
+     * @return new instance.
+     */
+    public UuidConfiguration withStorageType(UuidStorageType storageType) {
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), storageType, getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with a different worker ID, used by generators of
+     * {@link UuidStorageType#LONG} IDs to tell apart IDs generated by different database instances.
+     *
+     * @param workerId of the new instance, between 0 and {@link com.graphaware.module.uuid.generator.SnowflakeIdGenerator#MAX_WORKER_ID}.
+     * @return new instance.
+     */
+    public UuidConfiguration withWorkerId(int workerId) {
+        if (workerId < 0 || workerId > SnowflakeIdGenerator.MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker ID must be between 0 and " + SnowflakeIdGenerator.MAX_WORKER_ID + ", was " + workerId);
+        }
+
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), workerId, getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with a different textual encoding of UUIDs.
+     *
+     * @param uuidFormat of the new instance, see {@link UuidFormats#forName(String, ClassLoader)}.
+     * @return new instance.
+     */
+    public UuidConfiguration withUuidFormat(String uuidFormat) {
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), uuidFormat, getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with settings for name-based UUIDs, see
+     * {@link com.graphaware.module.uuid.generator.NameBasedUuidGenerator}.
+     *
+     * @param nameNamespace  namespace UUID in canonical form.
+     * @param nameProperties keys of the properties the UUID is derived from, by label (for nodes) or relationship type
+     *                       (for relationships). The iteration order of the map determines which label is used for nodes
+     *                       with several of the configured labels.
+     * @return new instance.
+     */
+    public UuidConfiguration withNameBasedUuids(String nameNamespace, Map<String, List<String>> nameProperties) {
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), nameNamespace, Collections.unmodifiableMap(new LinkedHashMap<>(nameProperties)), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with a different shard ID, embedded into UUIDs by
+     * {@link com.graphaware.module.uuid.generator.ShardedUuidGenerator} to tell which database owns an entity.
+     *
+     * @param shardId of the new instance, between 0 and {@link com.graphaware.module.uuid.generator.ShardedUuidGenerator#MAX_SHARD_ID}.
+     * @return new instance.
+     */
+    public UuidConfiguration withShardId(int shardId) {
+        if (shardId < 0 || shardId > ShardedUuidGenerator.MAX_SHARD_ID) {
+            throw new IllegalArgumentException("Shard ID must be between 0 and " + ShardedUuidGenerator.MAX_SHARD_ID + ", was " + shardId);
+        }
+
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), shardId, getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with a different chunk size. Entities that need a UUID
+     * are collected and assigned UUIDs in chunks of at most this many entities, so that the memory the module needs
+     * doesn't grow with the size of the transaction.
+     *
+     * @param chunkSize of the new instance, between 1 and {@link #MAX_CHUNK_SIZE}.
+     * @return new instance.
+     */
+    public UuidConfiguration withChunkSize(int chunkSize) {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE + ", was " + chunkSize);
+        }
+
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), chunkSize, getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with a different parallel threshold. Values for chunks of
+     * at least this many entities are formatted on a {@link java.util.concurrent.ForkJoinPool} owned by the deployment
+     * and bounded to half of the available processors, whereas generating UUIDs, reading the transaction data and
+     * writing the values stays on the committing thread. Only takes effect if the {@link #withChunkSize(int) chunk size} is at least as large.
+     *
+     * @param parallelThreshold of the new instance, 0 to never generate values in parallel.
+     * @return new instance.
+     */
+    public UuidConfiguration withParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Parallel threshold must not be negative, was " + parallelThreshold);
+        }
+
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), parallelThreshold, getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} that assigns UUIDs asynchronously. Committing transactions
+     * only append the IDs of entities that need a UUID to a durable backlog, which is drained in order by a background
+     * thread, in batched transactions. Immutability is still enforced synchronously.
+     *
+     * @param backlogDirectory directory to keep the backlog in, {@code null} to assign UUIDs synchronously.
+     * @return new instance.
+     */
+    public UuidConfiguration withAsynchronousAssignment(String backlogDirectory) {
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), backlogDirectory, getLazyLabels(), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with different lazy labels. Nodes with any of these labels
+     * are not assigned a UUID when created or labelled, but the first time one is requested through the
+     * {@code ga.uuid.of} procedure, see {@link UuidProcedures}. Once assigned, their UUIDs are as immutable as any other.
+     *
+     * @param lazyLabels of the new instance.
+     * @return new instance.
+     */
+    public UuidConfiguration withLazyLabels(Collection<String> lazyLabels) {
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), Collections.unmodifiableSet(new LinkedHashSet<>(lazyLabels)), shouldValidateUuids(), getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} with validation of client-supplied UUIDs turned on or off.
+     * New entities that already have a UUID, e.g. one obtained from the {@code ga.uuid.generate()} function, keep it;
+     * with validation on, the transaction is rolled back if it isn't a valid value for the configured storage type.
+     *
+     * @param validateUuids true to validate client-supplied UUIDs.
+     * @return new instance.
+     */
+    public UuidConfiguration withUuidValidation(boolean validateUuids) {
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), validateUuids, getDuplicateWindow());
+    }
+
+    /**
+     * Create a new instance of this {@link UuidConfiguration} that rolls back transactions assigning a UUID that is
+     * already assigned by the same transaction or has recently been committed. The check doesn't replace a uniqueness
+     * constraint on the uuid property, it catches duplicates where there is none, e.g. in bulk loads with client-supplied
+     * UUIDs. Values that can't be parsed in the configured storage type and format aren't checked.
+     *
+     * @param duplicateWindow approximate number of recently committed UUIDs to check new UUIDs against, 0 to only detect
+     *                        duplicates within a transaction.
+     * @return new instance.
+     */
+    public UuidConfiguration withDuplicateDetection(int duplicateWindow) {
+        if (duplicateWindow < 0) {
+            throw new IllegalArgumentException("Duplicate window must not be negative, was " + duplicateWindow);
+        }
+
+        return new UuidConfiguration(getInclusionPolicies(), getUuidGenerator(), getUuidProperty(), shouldStripHyphens(), getImmutable(), getPoolCapacity(), getPoolLowWaterMark(), getStorageType(), getWorkerId(), getConfiguredUuidFormat(), getNameNamespace(), getNameProperties(), getShardId(), getChunkSize(), getParallelThreshold(), getBacklogDirectory(), getLazyLabels(), shouldValidateUuids(), duplicateWindow);
     }
 
     /**
@@ -154,6 +495,62 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
             return false;
         }
 
+        if (poolCapacity != that.poolCapacity) {
+            return false;
+        }
+
+        if (poolLowWaterMark != that.poolLowWaterMark) {
+            return false;
+        }
+
+        if (storageType != that.storageType) {
+            return false;
+        }
+
+        if (workerId != that.workerId) {
+            return false;
+        }
+
+        if (!uuidFormat.equals(that.uuidFormat)) {
+            return false;
+        }
+
+        if (!Objects.equals(nameNamespace, that.nameNamespace)) {
+            return false;
+        }
+
+        if (!nameProperties.equals(that.nameProperties)) {
+            return false;
+        }
+
+        if (shardId != that.shardId) {
+            return false;
+        }
+
+        if (chunkSize != that.chunkSize) {
+            return false;
+        }
+
+        if (parallelThreshold != that.parallelThreshold) {
+            return false;
+        }
+
+        if (!Objects.equals(backlogDirectory, that.backlogDirectory)) {
+            return false;
+        }
+
+        if (!lazyLabels.equals(that.lazyLabels)) {
+            return false;
+        }
+
+        if (validateUuids != that.validateUuids) {
+            return false;
+        }
+
+        if (duplicateWindow != that.duplicateWindow) {
+            return false;
+        }
+
         return true;
     }
 
@@ -164,6 +561,20 @@ public class UuidConfiguration extends BaseModuleConfiguration<UuidConfiguration
         result = 31 * result + uuidProperty.hashCode();
         result = 31 * result + (stripHyphens ? 1 : 0);
         result = 31 * result + (immutable ? 1 : 0);
+        result = 31 * result + poolCapacity;
+        result = 31 * result + poolLowWaterMark;
+        result = 31 * result + storageType.hashCode();
+        result = 31 * result + workerId;
+        result = 31 * result + uuidFormat.hashCode();
+        result = 31 * result + Objects.hashCode(nameNamespace);
+        result = 31 * result + nameProperties.hashCode();
+        result = 31 * result + shardId;
+        result = 31 * result + chunkSize;
+        result = 31 * result + parallelThreshold;
+        result = 31 * result + Objects.hashCode(backlogDirectory);
+        result = 31 * result + lazyLabels.hashCode();
+        result = 31 * result + (validateUuids ? 1 : 0);
+        result = 31 * result + duplicateWindow;
         return result;
     }
 }
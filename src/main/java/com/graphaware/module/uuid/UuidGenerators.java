@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.common.uuid.UuidGenerator;
+import com.graphaware.module.uuid.format.UlidUuidFormat;
+import com.graphaware.module.uuid.format.UuidFormat;
+import com.graphaware.module.uuid.format.UuidFormats;
+import com.graphaware.module.uuid.generator.BinaryUuidGenerator;
+import com.graphaware.module.uuid.generator.EntityUuidGenerator;
+import com.graphaware.module.uuid.generator.LongIdGenerator;
+import com.graphaware.module.uuid.generator.PooledUuidGenerator;
+import com.graphaware.module.uuid.generator.SnowflakeIdGenerator;
+import com.graphaware.module.uuid.generator.UlidGenerator;
+import com.graphaware.module.uuid.generator.UuidConfigurationAware;
+import org.neo4j.logging.Log;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instantiates the generators described by a {@link UuidConfiguration}. Shared by all deployments of the UUID logic.
+ */
+final class UuidGenerators {
+
+    private static final Log LOG = LoggerFactory.getLogger(UuidGenerators.class);
+
+    private UuidGenerators() {
+    }
+
+    static UuidGenerator instantiateUuidGenerator(UuidConfiguration uuidConfiguration, ClassLoader classLoader) {
+        return instantiateGenerator(uuidConfiguration.getUuidGenerator(), UuidGenerator.class, uuidConfiguration, classLoader);
+    }
+
+    static LongIdGenerator instantiateLongIdGenerator(UuidConfiguration uuidConfiguration, ClassLoader classLoader) {
+        String generatorClassString = uuidConfiguration.getUuidGenerator();
+
+        if (UuidConfiguration.DEFAULT_UUID_GENERATOR.equals(generatorClassString)) {
+            generatorClassString = SnowflakeIdGenerator.class.getName();
+        }
+
+        return instantiateGenerator(generatorClassString, LongIdGenerator.class, uuidConfiguration, classLoader);
+    }
+
+    /**
+     * Wrap the given generator in a started {@link PooledUuidGenerator}, if pooling is configured and the generator
+     * doesn't derive UUIDs from entities. {@link BinaryUuidGenerator}s aren't pooled either: the pool holds text, so
+     * wrapping them would turn batched generation of bits into a round-trip through strings.
+     *
+     * @return generator to use.
+     */
+    static UuidGenerator pooled(UuidGenerator generator, UuidConfiguration uuidConfiguration) {
+        if (!uuidConfiguration.isPooled() || generator instanceof EntityUuidGenerator) {
+            return generator;
+        }
+
+        if (generator instanceof BinaryUuidGenerator) {
+            LOG.info("%s generates UUIDs in batches and is not pooled", generator.getClass().getName());
+            return generator;
+        }
+
+        PooledUuidGenerator pooledGenerator = new PooledUuidGenerator(generator, uuidConfiguration.getPoolCapacity(), uuidConfiguration.getPoolLowWaterMark());
+        pooledGenerator.start();
+        return pooledGenerator;
+    }
+
+    /**
+     * Create the value generator of a deployment. ULIDs are kept as they are generated, so that they can be parsed for
+     * validation and duplicate detection, which is only possible with the canonical (default), compact or ULID format
+     * and string storage.
+     *
+     * @throws IllegalArgumentException if the generator can't produce values of the configured storage type and format,
+     *                                  in which case the generator and the pool have been closed.
+     */
+    static UuidValueGenerator valueGenerator(UuidConfiguration uuidConfiguration, UuidGenerator uuidGenerator, LongIdGenerator longIdGenerator, ForkJoinPool parallelPool, ClassLoader classLoader) {
+        String formatName = uuidConfiguration.getUuidFormat();
+        UuidFormat uuidFormat = UuidFormats.forName(formatName, classLoader);
+
+        if (unwrap(uuidGenerator) instanceof UlidGenerator) {
+            if (uuidConfiguration.getStorageType() != UuidStorageType.STRING || !(UuidFormats.CANONICAL.equals(formatName) || UuidFormats.COMPACT.equals(formatName) || UuidFormats.ULID.equals(formatName))) {
+                // the deployment won't start, so nobody else would stop the pools
+                close(uuidGenerator);
+                close(parallelPool);
+                throw new IllegalArgumentException(UlidGenerator.class.getName() + " can only be used with " + UuidStorageType.STRING + " storage and the " + UuidFormats.ULID + " format, not with " + uuidConfiguration.getStorageType() + " storage and the " + formatName + " format");
+            }
+
+            uuidFormat = UlidUuidFormat.INSTANCE;
+        }
+
+        return new UuidValueGenerator(uuidConfiguration.getStorageType(), uuidGenerator, longIdGenerator, uuidFormat, uuidConfiguration.getParallelThreshold(), parallelPool);
+    }
+
+    /**
+     * Create the pool values are formatted on in parallel, if configured. The pool is bounded to half of the available
+     * processors, so that large transactions leave the rest to the database, and owned by the deployment rather than
+     * being the JVM-wide common pool, which is shared with the database and other libraries.
+     *
+     * @param name of the deployment, used to name the threads of the pool.
+     * @return pool, to be {@link #close(ForkJoinPool) closed} when the deployment shuts down, {@code null} if values
+     * are never formatted in parallel.
+     */
+    static ForkJoinPool parallelPool(UuidConfiguration uuidConfiguration, String name) {
+        if (uuidConfiguration.getParallelThreshold() <= 0) {
+            return null;
+        }
+
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("GraphAware-UUID-Format-" + name + "-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Shut down a pool created by {@link #parallelPool(UuidConfiguration, String)}, waiting briefly for tasks in flight.
+     */
+    static void close(ForkJoinPool parallelPool) {
+        if (parallelPool == null) {
+            return;
+        }
+
+        parallelPool.shutdown();
+
+        try {
+            parallelPool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Release resources held by a generator created by {@link #pooled(UuidGenerator, UuidConfiguration)}.
+     */
+    static void close(UuidGenerator generator) {
+        if (generator instanceof PooledUuidGenerator) {
+            ((PooledUuidGenerator) generator).close();
+        }
+    }
+
+    private static UuidGenerator unwrap(UuidGenerator generator) {
+        return generator instanceof PooledUuidGenerator ? ((PooledUuidGenerator) generator).getDelegate() : generator;
+    }
+
+    private static <G> G instantiateGenerator(String generatorClassString, Class<G> generatorType, UuidConfiguration uuidConfiguration, ClassLoader classLoader) {
+        Object generator;
+
+        try {
+            // Instantiate the configured/supplied class
+            Class<?> generatorClass = ClassUtils.forName(generatorClassString, classLoader);
+            generator = generatorClass.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to instantiate " + generatorType.getSimpleName() + " of type '" + generatorClassString + "'", e);
+        }
+
+        if (!generatorType.isInstance(generator)) {
+            throw new IllegalStateException(generatorClassString + " is not a " + generatorType.getSimpleName() + ", which is required for " + uuidConfiguration.getStorageType() + " storage");
+        }
+
+        if (generator instanceof UuidConfigurationAware) {
+            ((UuidConfigurationAware) generator).configure(uuidConfiguration);
+        }
+
+        return generatorType.cast(generator);
+    }
+}
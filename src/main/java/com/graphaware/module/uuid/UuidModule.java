@@ -15,24 +15,49 @@
  */
 package com.graphaware.module.uuid;
 
+import com.graphaware.common.log.LoggerFactory;
 import com.graphaware.common.util.Change;
 import com.graphaware.common.uuid.UuidGenerator;
+import com.graphaware.module.uuid.generator.LongIdGenerator;
 import com.graphaware.runtime.GraphAwareRuntime;
 import com.graphaware.runtime.module.BaseModule;
 import com.graphaware.runtime.module.DeliberateTransactionRollbackException;
 import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
 import org.neo4j.graphdb.Entity;
-import org.springframework.util.ClassUtils;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.logging.Log;
 
+import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * {@link com.graphaware.runtime.module.Module} that assigns UUID's to nodes in the graph.
+ * <p/>
+ * With {@link UuidConfiguration#withAsynchronousAssignment(String) asynchronous assignment}, the IDs of entities that
+ * need a UUID are only appended to a durable {@link UuidBacklog} before commit, and UUIDs are assigned after commit by a
+ * {@link UuidBacklogWorker}, as with {@link UuidTransactionEventListener}.
  */
 public class UuidModule extends BaseModule<Void> {
 
+    private static final Log LOG = LoggerFactory.getLogger(UuidModule.class);
+
     private final UuidConfiguration uuidConfiguration;
     private UuidGenerator uuidGenerator;
+    private LongIdGenerator longIdGenerator;
+    private UuidValueGenerator uuidValueGenerator;
+    private ForkJoinPool parallelPool;
+    private boolean processNodes;
+    private boolean processRelationships;
+    private ThreadLocal<EntityChunk> chunks;
+    private EntityChunk.Writer<RuntimeException> uuidWriter;
+    private LazyUuidAssigner lazyUuidAssigner;
+    private DuplicateUuidDetector duplicateDetector;
+    private UuidBacklog backlog;
+    private UuidBacklogWorker backlogWorker;
 
     /**
      * Construct a new UUID module.
@@ -46,23 +71,76 @@ public class UuidModule extends BaseModule<Void> {
 
     @Override
     public void start(GraphAwareRuntime runtime) {
-        this.uuidGenerator = instantiateUuidGenerator(uuidConfiguration);
-    }
+        if (uuidConfiguration.isAsynchronous() && runtime == null) {
+            throw new IllegalStateException("Asynchronous assignment of UUIDs requires a runtime, module " + getId() + " has been started without one");
+        }
 
-    protected UuidGenerator instantiateUuidGenerator(UuidConfiguration uuidConfiguration) {
-        String uuidGeneratorClassString = uuidConfiguration.getUuidGenerator();
+        if (uuidConfiguration.getStorageType() == UuidStorageType.LONG) {
+            this.longIdGenerator = instantiateLongIdGenerator(uuidConfiguration);
+        } else {
+            this.uuidGenerator = UuidGenerators.pooled(instantiateUuidGenerator(uuidConfiguration), uuidConfiguration);
+        }
 
-        try {
-            // Instantiate the configured/supplied class
-            @SuppressWarnings("unchecked")
-            Class<UuidGenerator> uuidGeneratorClass = (Class<UuidGenerator>) ClassUtils.forName(uuidGeneratorClassString, getClass().getClassLoader());
-            return uuidGeneratorClass.newInstance();
+        this.parallelPool = UuidGenerators.parallelPool(uuidConfiguration, getId());
+        this.uuidValueGenerator = UuidGenerators.valueGenerator(uuidConfiguration, uuidGenerator, longIdGenerator, parallelPool, getClass().getClassLoader());
+        this.processNodes = uuidConfiguration.includesNodes();
+        this.processRelationships = uuidConfiguration.includesRelationships();
+        this.chunks = ThreadLocal.withInitial(() -> new EntityChunk(uuidValueGenerator, uuidConfiguration.getChunkSize()));
 
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to instantiate UuidGenerator of type '" + uuidGeneratorClassString + "'", e);
+        String uuidProperty = uuidConfiguration.getUuidProperty();
+
+        if (uuidConfiguration.detectsDuplicates()) {
+            DuplicateUuidDetector detector = new DuplicateUuidDetector(uuidConfiguration, uuidValueGenerator);
+            this.duplicateDetector = detector;
+            this.uuidWriter = (entity, uuid) -> {
+                detector.check(uuid);
+                entity.setProperty(uuidProperty, uuid);
+            };
+        } else {
+            this.uuidWriter = (entity, uuid) -> entity.setProperty(uuidProperty, uuid);
+        }
+
+        // modules can be started without a runtime, e.g. when driven directly by benchmarks
+        GraphDatabaseService database = runtime == null ? null : runtime.getDatabase();
+        this.lazyUuidAssigner = LazyUuidAssigner.register(database == null ? null : database.databaseName(), uuidConfiguration, uuidValueGenerator);
+
+        if (uuidConfiguration.isAsynchronous()) {
+            this.backlog = new UuidBacklog(Paths.get(uuidConfiguration.getBacklogDirectory()), uuidConfiguration.getChunkSize());
+            this.backlogWorker = new UuidBacklogWorker(backlog, database, uuidConfiguration, uuidValueGenerator, lazyUuidAssigner);
+            this.backlogWorker.start();
+            LOG.info("Module %s assigns UUIDs asynchronously, backlog directory is %s", getId(), uuidConfiguration.getBacklogDirectory());
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Entities left in the backlog, if UUIDs are assigned asynchronously, are assigned UUIDs once a module with the same
+     * backlog directory is started again.
+     */
+    @Override
+    public void shutdown() {
+        if (backlog != null) {
+            backlogWorker.close();
+            backlog.close();
+        }
+
+        if (lazyUuidAssigner != null) {
+            lazyUuidAssigner.unregister();
+        }
+
+        UuidGenerators.close(uuidGenerator);
+        UuidGenerators.close(parallelPool);
+    }
+
+    protected UuidGenerator instantiateUuidGenerator(UuidConfiguration uuidConfiguration) {
+        return UuidGenerators.instantiateUuidGenerator(uuidConfiguration, getClass().getClassLoader());
+    }
+
+    protected LongIdGenerator instantiateLongIdGenerator(UuidConfiguration uuidConfiguration) {
+        return UuidGenerators.instantiateLongIdGenerator(uuidConfiguration, getClass().getClassLoader());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -71,84 +149,211 @@ public class UuidModule extends BaseModule<Void> {
         return uuidConfiguration;
     }
 
+    /**
+     * @return number of entities waiting in the backlog for a UUID to be assigned asynchronously, 0 if UUIDs are
+     * assigned synchronously.
+     */
+    public long getBacklogLag() {
+        return backlog == null ? 0 : backlog.lag();
+    }
+
+    /**
+     * @return number of entities that could not be assigned a UUID asynchronously and have been skipped, 0 if UUIDs are
+     * assigned synchronously.
+     */
+    public long getBacklogFailures() {
+        return backlogWorker == null ? 0 : backlogWorker.getFailedCount();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public Void beforeCommit(ImprovedTransactionData transactionData) throws DeliberateTransactionRollbackException {
-        processEntities(transactionData.getAllCreatedNodes(), transactionData.getAllDeletedNodes(), transactionData.getAllChangedNodes());
-        processEntities(transactionData.getAllCreatedRelationships(), transactionData.getAllDeletedRelationships(), transactionData.getAllChangedRelationships());
+        EntityChunk withoutUuid = chunks.get();
+        UuidBacklog.Appender appender = backlog == null ? null : backlog.appender();
+
+        if (duplicateDetector != null) {
+            duplicateDetector.begin();
+        }
+
+        try {
+            // don't even materialize the changes of entities that can't be included
+            if (processNodes) {
+                processEntities(transactionData, transactionData.getAllCreatedNodes(), transactionData.getAllChangedNodes(), withoutUuid, appender);
+            }
+
+            if (processRelationships) {
+                processEntities(transactionData, transactionData.getAllCreatedRelationships(), transactionData.getAllChangedRelationships(), withoutUuid, appender);
+            }
+
+            if (appender != null) {
+                appender.sync();
+            } else {
+                withoutUuid.flush(uuidWriter);
+            }
+        } catch (RuntimeException e) {
+            // the transaction may be rolled back without this module being called back
+            if (appender != null) {
+                appender.release();
+            }
+            throw e;
+        } finally {
+            withoutUuid.clear();
+            if (appender != null) {
+                appender.clear();
+            }
+        }
 
         return null;
     }
 
-    private <E extends Entity> void processEntities(Collection<E> created, Collection<E> deleted, Collection<Change<E>> updated) {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterCommit(Void state) {
+        if (duplicateDetector != null) {
+            duplicateDetector.committed();
+        }
+
+        if (backlog != null) {
+            // modules are called back on the committing thread, which holds the appender of the transaction
+            backlog.appender().release();
+            backlogWorker.wakeUp();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterRollback(Void state) {
+        if (duplicateDetector != null) {
+            duplicateDetector.rolledBack();
+        }
+
+        if (backlog != null) {
+            backlog.appender().release();
+        }
+    }
+
+    /**
+     * Find entities that need a UUID and enforce immutability. Changed entities are classified by the property and
+     * label changes recorded in the transaction data, so that entities whose change involves neither the uuid property
+     * nor a newly assigned label are never probed. Entities without a UUID are assigned one whenever the chunk fills
+     * up, so no per-transaction collection of them is built, or appended to the backlog if UUIDs are assigned
+     * asynchronously. Lazy entities are left for {@link UuidProcedures}.
+     * Entities created with a UUID, or given one by the transaction, keep it, after validation if configured. UUIDs are
+     * checked for duplicates as they are found or assigned, if configured.
+     */
+    private <E extends Entity> void processEntities(ImprovedTransactionData transactionData, Collection<E> created, Collection<Change<E>> updated, EntityChunk withoutUuid, UuidBacklog.Appender appender) {
         for (E entity : created) {
-            assignUuid(entity);
+            if (hasUuid(entity)) {
+                checkSuppliedUuid(entity);
+            } else if (!lazyUuidAssigner.isLazy(entity)) {
+                assignUuid(entity, withoutUuid, appender);
+            }
         }
 
         for (Change<E> change : updated) {
-            if (uuidHasBeenRemoved(change)) {
+            E current = change.getCurrent();
+
+            if (uuidHasBeenRemoved(transactionData, current)) {
                 if (isImmutable()) {
                     throw new DeliberateTransactionRollbackException("You are not allowed to remove the " + uuidConfiguration.getUuidProperty() + " property");
-                } else {
-                    continue;
                 }
-            }
-
-            if (uuidHasChanged(change)) {
+            } else if (uuidHasChanged(transactionData, change)) {
                 if (isImmutable()) {
                     throw new DeliberateTransactionRollbackException("You are not allowed to modify the " + uuidConfiguration.getUuidProperty() + " property");
-                } else {
-                    continue;
                 }
+                if (duplicateDetector != null) {
+                    duplicateDetector.check(current.getProperty(uuidConfiguration.getUuidProperty()));
+                }
+            } else if (uuidHasBeenCreated(transactionData, current)) {
+                checkSuppliedUuid(current);
+            } else if (labelsHaveBeenAssigned(transactionData, current) && !hasUuid(current) && !lazyUuidAssigner.isLazy(current)) {
+                assignUuid(current, withoutUuid, appender);
             }
+        }
+    }
 
-            if (!hadUuid(change) && hasNoUuid(change)) {
-                assignUuid(change.getCurrent());
-            }
+    /**
+     * Assign a UUID to an entity with the next chunk, or append it to the backlog if UUIDs are assigned asynchronously.
+     */
+    private void assignUuid(Entity entity, EntityChunk withoutUuid, UuidBacklog.Appender appender) {
+        if (appender == null) {
+            withoutUuid.add(entity, uuidWriter);
+        } else if (entity instanceof Node) {
+            appender.addNode(entity.getId());
+        } else {
+            appender.addRelationship(entity.getId());
         }
     }
 
-    private void assignUuid(Entity entity) {
-        String uuidProperty = uuidConfiguration.getUuidProperty();
+    /**
+     * Validate the UUID an entity has been supplied with and check it for duplicates, if configured to.
+     */
+    private void checkSuppliedUuid(Entity entity) {
+        boolean validate = uuidConfiguration.shouldValidateUuids();
 
-        if (!entity.hasProperty(uuidProperty)) {
-            assignNewUuid(entity, uuidProperty);
+        if (!validate && duplicateDetector == null) {
+            return;
         }
-    }
 
-    private void assignNewUuid(Entity entity, String uuidProperty) {
-        String uuid = uuidGenerator.generateUuid();
+        String uuidProperty = uuidConfiguration.getUuidProperty();
+        Object uuid = entity.getProperty(uuidProperty);
 
-        if (uuidConfiguration.shouldStripHyphens()) {
-            uuid = uuid.replaceAll("-", "");
+        if (validate) {
+            uuidValueGenerator.validate(uuid, uuidProperty);
         }
 
-        entity.setProperty(uuidProperty, uuid);
+        if (duplicateDetector != null) {
+            duplicateDetector.check(uuid);
+        }
     }
 
     private boolean isImmutable() {
         return uuidConfiguration.getImmutable();
     }
 
-    private boolean uuidHasBeenRemoved(Change<? extends Entity> changed) {
-        return hadUuid(changed) && hasNoUuid(changed);
+    private boolean uuidHasBeenRemoved(ImprovedTransactionData transactionData, Entity entity) {
+        String uuidProperty = uuidConfiguration.getUuidProperty();
+
+        if (entity instanceof Node) {
+            return transactionData.hasPropertyBeenDeleted((Node) entity, uuidProperty);
+        }
+
+        return transactionData.hasPropertyBeenDeleted((Relationship) entity, uuidProperty);
     }
 
-    private boolean uuidHasChanged(Change<? extends Entity> change) {
-        return hadUuid(change) && (!change.getPrevious().getProperty(uuidConfiguration.getUuidProperty()).equals(change.getCurrent().getProperty(uuidConfiguration.getUuidProperty())));
+    private boolean uuidHasBeenCreated(ImprovedTransactionData transactionData, Entity entity) {
+        String uuidProperty = uuidConfiguration.getUuidProperty();
+
+        if (entity instanceof Node) {
+            return transactionData.hasPropertyBeenCreated((Node) entity, uuidProperty);
+        }
+
+        return transactionData.hasPropertyBeenCreated((Relationship) entity, uuidProperty);
     }
 
-    private boolean hasUuid(Entity entity) {
-        return entity.hasProperty(uuidConfiguration.getUuidProperty());
+    private boolean uuidHasChanged(ImprovedTransactionData transactionData, Change<? extends Entity> change) {
+        String uuidProperty = uuidConfiguration.getUuidProperty();
+        Entity current = change.getCurrent();
+
+        boolean assigned = current instanceof Node
+                ? transactionData.hasPropertyBeenChanged((Node) current, uuidProperty)
+                : transactionData.hasPropertyBeenChanged((Relationship) current, uuidProperty);
+
+        // re-assigning the same value is not a change
+        return assigned && !Objects.deepEquals(change.getPrevious().getProperty(uuidProperty), current.getProperty(uuidProperty));
     }
 
-    private boolean hasNoUuid(Change<? extends Entity> change) {
-        return !hasUuid(change.getCurrent());
+    private boolean labelsHaveBeenAssigned(ImprovedTransactionData transactionData, Entity entity) {
+        return entity instanceof Node && !transactionData.assignedLabels((Node) entity).isEmpty();
     }
 
-    private boolean hadUuid(Change<? extends Entity> change) {
-        return hasUuid(change.getPrevious());
+    private boolean hasUuid(Entity entity) {
+        return entity.hasProperty(uuidConfiguration.getUuidProperty());
     }
-}
\ No newline at end of file
+}
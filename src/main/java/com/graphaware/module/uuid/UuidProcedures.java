@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.UserFunction;
+
+import java.util.stream.Stream;
+
+/**
+ * Procedures and functions giving clients access to UUIDs: {@code ga.uuid.of} assigns them on first request where they
+ * have been deferred (see {@link UuidConfiguration#withLazyLabels(java.util.Collection)}), {@code ga.uuid.generate}
+ * generates them for entities about to be created, so that the UUID can be returned by the creating statement.
+ */
+public class UuidProcedures {
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Transaction tx;
+
+    @Procedure(name = "ga.uuid.of", mode = Mode.WRITE)
+    @Description("ga.uuid.of(entity, uuidProperty = 'uuid') - get the UUID of a node or relationship, assigning one first if it has none yet")
+    public Stream<UuidResult> of(@Name("entity") Object entity, @Name(value = "uuidProperty", defaultValue = "uuid") String uuidProperty) {
+        if (!(entity instanceof Entity)) {
+            throw new IllegalArgumentException("Expected a node or a relationship, got " + entity);
+        }
+
+        return Stream.of(new UuidResult(assigner(uuidProperty).uuidOf(tx, (Entity) entity)));
+    }
+
+    @UserFunction(name = "ga.uuid.generate")
+    @Description("ga.uuid.generate(uuidProperty = 'uuid') - generate a UUID with the configured generator, storage type and format, to be set on an entity being created")
+    public Object generate(@Name(value = "uuidProperty", defaultValue = "uuid") String uuidProperty) {
+        return assigner(uuidProperty).generate();
+    }
+
+    private LazyUuidAssigner assigner(String uuidProperty) {
+        LazyUuidAssigner assigner = LazyUuidAssigner.forProperty(db.databaseName(), uuidProperty);
+
+        if (assigner == null) {
+            throw new IllegalStateException("UUIDs in the " + uuidProperty + " property are not managed by any started UUID module or listener of database " + db.databaseName());
+        }
+
+        return assigner;
+    }
+
+    public static class UuidResult {
+
+        public final Object uuid;
+
+        public UuidResult(Object uuid) {
+            this.uuid = uuid;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of 128-bit UUIDs, stored as pairs of {@code long}s in a single array, with linear probing.
+ * Adding and checking never box, hash {@link String}s, or allocate, unless the set needs to grow. Meant to be reused:
+ * {@link #clear() clearing} a set that has grown beyond its initial capacity shrinks it back, so that a single large
+ * transaction doesn't make clearing expensive for all subsequent ones.
+ */
+final class UuidSet {
+
+    private final int initialSlots;
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    /**
+     * @param expectedSize number of UUIDs the set should hold without growing.
+     */
+    UuidSet(int expectedSize) {
+        this.initialSlots = slotsFor(expectedSize);
+        allocate(initialSlots);
+    }
+
+    /**
+     * Add a UUID.
+     *
+     * @param msb most significant bits.
+     * @param lsb least significant bits.
+     * @return true iff the UUID was not in the set.
+     */
+    boolean add(long msb, long lsb) {
+        // the all-zero UUID marks empty slots, so it is tracked on the side
+        if (msb == 0 && lsb == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = find(table, mask, msb, lsb);
+
+        if (table[slot] != 0 || table[slot + 1] != 0) {
+            return false;
+        }
+
+        table[slot] = msb;
+        table[slot + 1] = lsb;
+
+        // keep the table at most half full, table.length is twice the number of slots
+        if (++size > table.length / 4) {
+            allocate(table.length);
+        }
+
+        return true;
+    }
+
+    /**
+     * @param msb most significant bits.
+     * @param lsb least significant bits.
+     * @return true iff the UUID is in the set.
+     */
+    boolean contains(long msb, long lsb) {
+        if (msb == 0 && lsb == 0) {
+            return containsZero;
+        }
+
+        int slot = find(table, mask, msb, lsb);
+        return table[slot] != 0 || table[slot + 1] != 0;
+    }
+
+    /**
+     * Add all UUIDs of this set to another one.
+     *
+     * @param target to add the UUIDs to.
+     */
+    void addTo(RecentUuids target) {
+        if (containsZero) {
+            target.add(0, 0);
+        }
+
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != 0 || table[i + 1] != 0) {
+                target.add(table[i], table[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * @return number of UUIDs in the set.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Remove all UUIDs.
+     */
+    void clear() {
+        if (size == 0) {
+            return;
+        }
+
+        if (table.length > 2 * initialSlots) {
+            table = null;
+            allocate(initialSlots);
+        } else {
+            Arrays.fill(table, 0);
+        }
+
+        size = 0;
+        containsZero = false;
+    }
+
+    /**
+     * Mix the bits of a UUID, so that UUIDs that only differ in a few bits, e.g. sequential IDs or time-ordered UUIDs,
+     * are spread evenly.
+     */
+    static long hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L + lsb;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * @return index of the slot holding the UUID, or of the empty slot it would be added to.
+     */
+    private static int find(long[] table, int mask, long msb, long lsb) {
+        int index = (int) hash(msb, lsb) & mask;
+
+        while (true) {
+            int slot = 2 * index;
+            long slotMsb = table[slot];
+            long slotLsb = table[slot + 1];
+
+            if (slotMsb == msb && slotLsb == lsb || slotMsb == 0 && slotLsb == 0) {
+                return slot;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Allocate a table with the given number of slots, rehashing all UUIDs.
+     */
+    private void allocate(int slots) {
+        long[] old = table;
+        long[] resized = new long[2 * slots];
+        int resizedMask = slots - 1;
+
+        if (old != null) {
+            for (int i = 0; i < old.length; i += 2) {
+                if (old[i] != 0 || old[i + 1] != 0) {
+                    int slot = find(resized, resizedMask, old[i], old[i + 1]);
+                    resized[slot] = old[i];
+                    resized[slot + 1] = old[i + 1];
+                }
+            }
+        }
+
+        table = resized;
+        mask = resizedMask;
+    }
+
+    /**
+     * @return power of two number of slots keeping the set at most half full with the expected size.
+     */
+    private static int slotsFor(int expectedSize) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+/**
+ * Type of the property the {@link UuidModule} stores assigned identifiers in.
+ */
+public enum UuidStorageType {
+
+    /**
+     * Identifiers produced by a {@link com.graphaware.common.uuid.UuidGenerator} stored as {@link String}s.
+     */
+    STRING,
+
+    /**
+     * Identifiers produced by a {@link com.graphaware.module.uuid.generator.LongIdGenerator} stored as {@code long}s.
+     */
+    LONG,
+
+    /**
+     * UUIDs stored as 16-byte big-endian {@code byte[]}s, taking less than half the space of their textual form.
+     * The bits are taken directly from a {@link com.graphaware.module.uuid.generator.BinaryUuidGenerator}, or parsed
+     * from the text produced by any other {@link com.graphaware.common.uuid.UuidGenerator}.
+     */
+    BINARY
+}
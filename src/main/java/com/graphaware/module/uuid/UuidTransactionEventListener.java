@@ -0,0 +1,553 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import com.graphaware.common.uuid.UuidGenerator;
+import com.graphaware.module.uuid.generator.LongIdGenerator;
+import com.graphaware.runtime.module.DeliberateTransactionRollbackException;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.ConstraintViolationException;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.internal.kernel.api.exceptions.schema.ConstraintValidationException;
+import org.neo4j.internal.kernel.api.exceptions.schema.IllegalTokenNameException;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A lean deployment of the {@link UuidModule} logic as a plain Neo4j {@link TransactionEventListener}, working on raw
+ * {@link TransactionData} rather than GraphAware's {@link com.graphaware.tx.event.improved.api.ImprovedTransactionData}.
+ * This avoids building previous/current snapshots of every changed entity, at the cost of the features of the
+ * GraphAware runtime (declarative configuration, module ordering, etc.).
+ * <p/>
+ * Honours the same {@link UuidConfiguration}: inclusion policies (evaluated on entities as they are about to be
+ * committed), immutability, generator, storage type and format. UUIDs are assigned to included entities created by
+ * the transaction and to included nodes that have been assigned a label and have no UUID yet, except nodes with lazy
+ * labels. Like the module, the listener assigns UUIDs in {@link UuidConfiguration#getChunkSize() chunks} while
+ * iterating the transaction data.
+ * <p/>
+ * With {@link UuidConfiguration#withAsynchronousAssignment(String) asynchronous assignment}, the IDs of those entities
+ * are only appended to a durable {@link UuidBacklog} before commit, and UUIDs are assigned after commit by a
+ * {@link UuidBacklogWorker}. Immutability is enforced synchronously either way, as is
+ * {@link UuidConfiguration#withDuplicateDetection(int) duplicate detection} of client-supplied UUIDs.
+ * <p/>
+ * UUIDs are written, and their existence checked, through the kernel API with the property key token of the uuid
+ * property resolved once, rather than through the Core API, which resolves the token on every call.
+ * <p/>
+ * Register with {@link #register(DatabaseManagementService, String, UuidConfiguration)} and {@link #close()} when
+ * unregistered. A listener must only be registered with a single database.
+ */
+public class UuidTransactionEventListener implements TransactionEventListener<Void>, AutoCloseable {
+
+    private final UuidConfiguration uuidConfiguration;
+    private final String uuidProperty;
+    private final NodeInclusionPolicy nodeInclusionPolicy;
+    private final RelationshipInclusionPolicy relationshipInclusionPolicy;
+    private final UuidGenerator uuidGenerator;
+    private final UuidValueGenerator uuidValueGenerator;
+    private final ForkJoinPool parallelPool;
+    private final boolean processNodes;
+    private final boolean processRelationships;
+    private final boolean validateUuids;
+    private final ThreadLocal<EntityChunk> chunks;
+    private final UuidBacklog backlog;
+    private final UuidBacklogWorker backlogWorker;
+    private final LazyUuidAssigner lazyUuidAssigner;
+    private final DuplicateUuidDetector duplicateDetector;
+
+    /**
+     * Token of the uuid property, resolved on first use. Tokens are specific to a database, so a listener must not be
+     * registered with more than one.
+     */
+    private volatile int uuidPropertyKey = TokenRead.NO_TOKEN;
+
+    /**
+     * Create a new listener. Generators are instantiated (and pools started) immediately.
+     *
+     * @param configuration of the listener, must not be {@link UuidConfiguration#isAsynchronous() asynchronous}.
+     */
+    public UuidTransactionEventListener(UuidConfiguration configuration) {
+        this(configuration, null);
+    }
+
+    /**
+     * Create a new listener. Generators are instantiated (and pools started) immediately, as is the worker draining the
+     * backlog, if UUIDs are assigned asynchronously.
+     *
+     * @param configuration of the listener.
+     * @param database      the listener will be registered with. Required for asynchronous assignment; otherwise, the
+     *                      listener becomes known to {@link UuidProcedures} on its first transaction if not given.
+     */
+    public UuidTransactionEventListener(UuidConfiguration configuration, GraphDatabaseService database) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        LongIdGenerator longIdGenerator = null;
+        UuidGenerator generator = null;
+
+        if (configuration.getStorageType() == UuidStorageType.LONG) {
+            longIdGenerator = UuidGenerators.instantiateLongIdGenerator(configuration, classLoader);
+        } else {
+            generator = UuidGenerators.pooled(UuidGenerators.instantiateUuidGenerator(configuration, classLoader), configuration);
+        }
+
+        this.uuidConfiguration = configuration;
+        this.uuidProperty = configuration.getUuidProperty();
+        this.nodeInclusionPolicy = configuration.getInclusionPolicies().getNodeInclusionPolicy();
+        this.relationshipInclusionPolicy = configuration.getInclusionPolicies().getRelationshipInclusionPolicy();
+        this.uuidGenerator = generator;
+        this.parallelPool = UuidGenerators.parallelPool(configuration, uuidProperty);
+        this.uuidValueGenerator = UuidGenerators.valueGenerator(configuration, generator, longIdGenerator, parallelPool, classLoader);
+        this.processNodes = configuration.includesNodes();
+        this.processRelationships = configuration.includesRelationships();
+        this.validateUuids = configuration.shouldValidateUuids();
+        this.chunks = ThreadLocal.withInitial(() -> new EntityChunk(uuidValueGenerator, configuration.getChunkSize()));
+        this.lazyUuidAssigner = new LazyUuidAssigner(configuration, uuidValueGenerator);
+        if (database != null) {
+            lazyUuidAssigner.register(database.databaseName());
+        }
+        this.duplicateDetector = configuration.detectsDuplicates() ? new DuplicateUuidDetector(configuration, uuidValueGenerator) : null;
+
+        if (configuration.isAsynchronous()) {
+            if (database == null) {
+                throw new IllegalArgumentException("Asynchronous assignment of UUIDs requires the database the listener is registered with");
+            }
+
+            this.backlog = new UuidBacklog(Paths.get(configuration.getBacklogDirectory()), configuration.getChunkSize());
+            this.backlogWorker = new UuidBacklogWorker(backlog, database, configuration, uuidValueGenerator, lazyUuidAssigner);
+            this.backlogWorker.start();
+        } else {
+            this.backlog = null;
+            this.backlogWorker = null;
+        }
+    }
+
+    /**
+     * Create a listener and register it with a database.
+     *
+     * @param managementService to register the listener with.
+     * @param databaseName      name of the database.
+     * @param configuration     of the listener.
+     * @return the registered listener, to be unregistered and {@link #close() closed} when no longer needed.
+     */
+    public static UuidTransactionEventListener register(DatabaseManagementService managementService, String databaseName, UuidConfiguration configuration) {
+        UuidTransactionEventListener listener = new UuidTransactionEventListener(configuration, managementService.database(databaseName));
+        managementService.registerTransactionEventListener(databaseName, listener);
+        return listener;
+    }
+
+    /**
+     * @return configuration of this listener.
+     */
+    public UuidConfiguration getConfiguration() {
+        return uuidConfiguration;
+    }
+
+    /**
+     * @return number of entities waiting in the backlog for a UUID to be assigned asynchronously, 0 if UUIDs are
+     * assigned synchronously.
+     */
+    public long getBacklogLag() {
+        return backlog == null ? 0 : backlog.lag();
+    }
+
+    /**
+     * @return number of entities that could not be assigned a UUID asynchronously and have been skipped, 0 if UUIDs are
+     * assigned synchronously.
+     */
+    public long getBacklogFailures() {
+        return backlogWorker == null ? 0 : backlogWorker.getFailedCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Void beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+        if (!lazyUuidAssigner.isRegistered()) {
+            // created without the database, so the procedures can only find the listener once it has been used
+            lazyUuidAssigner.register(databaseService.databaseName());
+        }
+
+        if (duplicateDetector != null) {
+            duplicateDetector.begin();
+        }
+
+        if (processNodes) {
+            checkNodeProperties(data);
+        }
+
+        if (processRelationships) {
+            checkRelationshipProperties(data);
+        }
+
+        KernelTransaction kernelTransaction = ((InternalTransaction) transaction).kernelTransaction();
+
+        if (backlog != null) {
+            appendToBacklog(data, kernelTransaction);
+            return null;
+        }
+
+        EntityChunk withoutUuid = chunks.get();
+
+        try {
+            assignNewUuids(data, kernelTransaction, withoutUuid);
+        } catch (KernelException e) {
+            throw translate(e);
+        } finally {
+            withoutUuid.clear();
+        }
+
+        return null;
+    }
+
+    /**
+     * Assign UUIDs to created entities and newly labelled nodes, chunk by chunk.
+     */
+    private void assignNewUuids(TransactionData data, KernelTransaction kernelTransaction, EntityChunk withoutUuid) throws KernelException {
+        EntityChunk.Writer<KernelException> writer = (entity, uuid) -> setUuid(kernelTransaction, entity, uuid);
+
+        if (processNodes) {
+            for (Node node : data.createdNodes()) {
+                if (!data.isDeleted(node) && nodeInclusionPolicy.include(node) && needsUuid(kernelTransaction, node)) {
+                    withoutUuid.add(node, writer);
+                }
+            }
+        }
+
+        if (processRelationships) {
+            for (Relationship relationship : data.createdRelationships()) {
+                if (!data.isDeleted(relationship) && relationshipInclusionPolicy.include(relationship) && needsUuid(kernelTransaction, relationship)) {
+                    withoutUuid.add(relationship, writer);
+                }
+            }
+        }
+
+        withoutUuid.flush(writer);
+
+        if (!processNodes) {
+            return;
+        }
+
+        // created nodes have got their UUIDs by now; a node assigned several labels may be added more than once to
+        // the same chunk, so only the first of its values is written
+        EntityChunk.Writer<KernelException> labelledWriter = (entity, uuid) -> {
+            if (!hasUuid(kernelTransaction, entity)) {
+                setUuid(kernelTransaction, entity, uuid);
+            }
+        };
+
+        for (LabelEntry labelEntry : data.assignedLabels()) {
+            Node node = labelEntry.node();
+            if (!data.isDeleted(node) && !hasUuid(kernelTransaction, node) && nodeInclusionPolicy.include(node) && !lazyUuidAssigner.isLazy(node)) {
+                withoutUuid.add(node, labelledWriter);
+            }
+        }
+
+        withoutUuid.flush(labelledWriter);
+    }
+
+    /**
+     * Record the IDs of entities that need a UUID in the backlog of the current thread, in the same order in which they
+     * would be assigned UUIDs synchronously. If that fails, records appended so far are released straight away, since
+     * the transaction may be rolled back without this listener being called back.
+     */
+    private void appendToBacklog(TransactionData data, KernelTransaction kernelTransaction) {
+        UuidBacklog.Appender appender = backlog.appender();
+
+        try {
+            if (processNodes) {
+                for (Node node : data.createdNodes()) {
+                    if (!data.isDeleted(node) && nodeInclusionPolicy.include(node) && needsUuid(kernelTransaction, node)) {
+                        appender.addNode(node.getId());
+                    }
+                }
+            }
+
+            if (processRelationships) {
+                for (Relationship relationship : data.createdRelationships()) {
+                    if (!data.isDeleted(relationship) && relationshipInclusionPolicy.include(relationship) && needsUuid(kernelTransaction, relationship)) {
+                        appender.addRelationship(relationship.getId());
+                    }
+                }
+            }
+
+            if (processNodes) {
+                for (LabelEntry labelEntry : data.assignedLabels()) {
+                    Node node = labelEntry.node();
+                    if (!data.isDeleted(node) && !hasUuid(kernelTransaction, node) && nodeInclusionPolicy.include(node) && !lazyUuidAssigner.isLazy(node)) {
+                        appender.addNode(node.getId());
+                    }
+                }
+            }
+
+            appender.sync();
+        } catch (RuntimeException e) {
+            appender.release();
+            throw e;
+        } finally {
+            appender.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterCommit(TransactionData data, Void state, GraphDatabaseService databaseService) {
+        if (duplicateDetector != null) {
+            duplicateDetector.committed();
+        }
+
+        if (backlog != null) {
+            // listeners are called back on the committing thread, which holds the appender of the transaction
+            backlog.appender().release();
+            backlogWorker.wakeUp();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterRollback(TransactionData data, Void state, GraphDatabaseService databaseService) {
+        if (duplicateDetector != null) {
+            duplicateDetector.rolledBack();
+        }
+
+        if (backlog != null) {
+            backlog.appender().release();
+        }
+    }
+
+    /**
+     * Stop pre-generating UUIDs, if configured to do so, shut down the pool formatting UUIDs in parallel, if any, and
+     * stop draining the backlog, if UUIDs are assigned
+     * asynchronously. Entities left in the backlog are assigned UUIDs once a listener with the same backlog directory
+     * is created again.
+     */
+    @Override
+    public void close() {
+        if (backlog != null) {
+            backlogWorker.close();
+            backlog.close();
+        }
+
+        lazyUuidAssigner.unregister();
+        UuidGenerators.close(uuidGenerator);
+        UuidGenerators.close(parallelPool);
+    }
+
+    private void checkNodeProperties(TransactionData data) {
+        boolean immutable = uuidConfiguration.getImmutable();
+
+        if (immutable) {
+            for (PropertyEntry<Node> entry : data.removedNodeProperties()) {
+                if (isExistingUuid(entry) && !data.isDeleted(entry.entity()) && nodeInclusionPolicy.include(entry.entity())) {
+                    throw new DeliberateTransactionRollbackException("You are not allowed to remove the " + uuidProperty + " property");
+                }
+            }
+        } else if (!validateUuids && duplicateDetector == null) {
+            return;
+        }
+
+        for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+            if (needsCheck(entry, immutable) && !data.isDeleted(entry.entity()) && nodeInclusionPolicy.include(entry.entity())) {
+                checkAssignedUuid(entry, immutable);
+            }
+        }
+    }
+
+    private void checkRelationshipProperties(TransactionData data) {
+        boolean immutable = uuidConfiguration.getImmutable();
+
+        if (immutable) {
+            for (PropertyEntry<Relationship> entry : data.removedRelationshipProperties()) {
+                if (isExistingUuid(entry) && !data.isDeleted(entry.entity()) && relationshipInclusionPolicy.include(entry.entity())) {
+                    throw new DeliberateTransactionRollbackException("You are not allowed to remove the " + uuidProperty + " property");
+                }
+            }
+        } else if (!validateUuids && duplicateDetector == null) {
+            return;
+        }
+
+        for (PropertyEntry<Relationship> entry : data.assignedRelationshipProperties()) {
+            if (needsCheck(entry, immutable) && !data.isDeleted(entry.entity()) && relationshipInclusionPolicy.include(entry.entity())) {
+                checkAssignedUuid(entry, immutable);
+            }
+        }
+    }
+
+    private boolean isExistingUuid(PropertyEntry<? extends Entity> entry) {
+        return uuidProperty.equals(entry.key()) && entry.previouslyCommittedValue() != null;
+    }
+
+    private boolean isModifiedUuid(PropertyEntry<? extends Entity> entry) {
+        return isExistingUuid(entry) && !Objects.deepEquals(entry.previouslyCommittedValue(), entry.value());
+    }
+
+    /**
+     * @return true iff the entry is a uuid supplied by the client, on a created or an existing entity, which is
+     * validated and checked for duplicates if configured, or a modified uuid, which is rejected if immutable.
+     */
+    private boolean needsCheck(PropertyEntry<? extends Entity> entry, boolean immutable) {
+        if (!uuidProperty.equals(entry.key())) {
+            return false;
+        }
+
+        if (entry.previouslyCommittedValue() == null) {
+            return validateUuids || duplicateDetector != null;
+        }
+
+        return (immutable || duplicateDetector != null) && isModifiedUuid(entry);
+    }
+
+    private void checkAssignedUuid(PropertyEntry<? extends Entity> entry, boolean immutable) {
+        if (entry.previouslyCommittedValue() == null) {
+            if (validateUuids) {
+                uuidValueGenerator.validate(entry.value(), uuidProperty);
+            }
+        } else if (immutable) {
+            throw new DeliberateTransactionRollbackException("You are not allowed to modify the " + uuidProperty + " property");
+        }
+
+        if (duplicateDetector != null) {
+            duplicateDetector.check(entry.value());
+        }
+    }
+
+    /**
+     * Write a UUID through the kernel, with the cached property key token, after checking it for duplicates if
+     * configured to.
+     */
+    private void setUuid(KernelTransaction kernelTransaction, Entity entity, Object uuid) throws KernelException {
+        if (duplicateDetector != null) {
+            duplicateDetector.check(uuid);
+        }
+
+        int propertyKey = uuidPropertyKey(kernelTransaction, true);
+        Value value = Values.of(uuid);
+
+        if (entity instanceof Node) {
+            kernelTransaction.dataWrite().nodeSetProperty(entity.getId(), propertyKey, value);
+        } else {
+            kernelTransaction.dataWrite().relationshipSetProperty(entity.getId(), propertyKey, value);
+        }
+    }
+
+    private RuntimeException translate(KernelException e) {
+        if (e instanceof EntityNotFoundException) {
+            return new NotFoundException(e);
+        }
+
+        if (e instanceof ConstraintValidationException) {
+            return new ConstraintViolationException(e.getMessage(), e);
+        }
+
+        return new TransactionFailureException("Unable to assign the " + uuidProperty + " property", e);
+    }
+
+    /**
+     * Decide whether a created entity needs a UUID. Validates the UUID it has been created with and checks it for
+     * duplicates, if configured to.
+     */
+    private boolean needsUuid(KernelTransaction kernelTransaction, Entity entity) {
+        // UUIDs supplied by clients have been checked with the other assigned properties
+        return !hasUuid(kernelTransaction, entity) && !lazyUuidAssigner.isLazy(entity);
+    }
+
+    /**
+     * Check the existence of the uuid property through the kernel, with the cached property key token.
+     */
+    private boolean hasUuid(KernelTransaction kernelTransaction, Entity entity) {
+        int propertyKey = uuidPropertyKey(kernelTransaction, false);
+
+        if (propertyKey == TokenRead.NO_TOKEN) {
+            return false;
+        }
+
+        PropertyCursor properties = kernelTransaction.ambientPropertyCursor();
+
+        if (entity instanceof Node) {
+            NodeCursor nodes = kernelTransaction.ambientNodeCursor();
+            kernelTransaction.dataRead().singleNode(entity.getId(), nodes);
+            if (!nodes.next()) {
+                return false;
+            }
+            nodes.properties(properties);
+        } else {
+            RelationshipScanCursor relationships = kernelTransaction.ambientRelationshipCursor();
+            kernelTransaction.dataRead().singleRelationship(entity.getId(), relationships);
+            if (!relationships.next()) {
+                return false;
+            }
+            relationships.properties(properties);
+        }
+
+        while (properties.next()) {
+            if (properties.propertyKey() == propertyKey) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int uuidPropertyKey(KernelTransaction kernelTransaction, boolean create) {
+        int propertyKey = uuidPropertyKey;
+
+        if (propertyKey != TokenRead.NO_TOKEN) {
+            return propertyKey;
+        }
+
+        if (create) {
+            try {
+                propertyKey = kernelTransaction.tokenWrite().propertyKeyGetOrCreateForName(uuidProperty);
+            } catch (IllegalTokenNameException e) {
+                throw new IllegalArgumentException(uuidProperty + " is not a valid property key", e);
+            }
+        } else {
+            propertyKey = kernelTransaction.tokenRead().propertyKey(uuidProperty);
+        }
+
+        if (propertyKey != TokenRead.NO_TOKEN) {
+            uuidPropertyKey = propertyKey;
+        }
+
+        return propertyKey;
+    }
+}
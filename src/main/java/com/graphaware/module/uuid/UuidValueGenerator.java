@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.common.uuid.UuidGenerator;
+import com.graphaware.module.uuid.format.UuidFormat;
+import com.graphaware.module.uuid.generator.BinaryUuidGenerator;
+import com.graphaware.module.uuid.generator.EntityUuidGenerator;
+import com.graphaware.module.uuid.generator.LongIdGenerator;
+import com.graphaware.runtime.module.DeliberateTransactionRollbackException;
+import org.neo4j.graphdb.Entity;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Produces values of the uuid property in batches, in the form dictated by the {@link UuidStorageType}: formatted
+ * {@link String}s, {@link Long}s or {@code byte[]}s. Values are written to a per-thread buffer reused across
+ * transactions, so that generators can amortize their per-call costs and no per-transaction buffers are allocated.
+ * Batches are {@link EntityChunk chunks}, so the buffers never grow beyond {@link UuidConfiguration#MAX_CHUNK_SIZE}.
+ * <p/>
+ * Batches of at least {@link UuidConfiguration#getParallelThreshold()} values are turned into values on a
+ * {@link ForkJoinPool} owned by the deployment, split into slices of {@link #PARALLEL_SLICE}. UUIDs are always generated
+ * on the committing thread, in the order of the entities, and only formatting is done in parallel, so that UUIDs of
+ * time-ordered generators follow the order of the entities within a transaction.
+ */
+final class UuidValueGenerator {
+
+    private static final int PARALLEL_SLICE = 256;
+
+    private final UuidStorageType storageType;
+    private final UuidGenerator uuidGenerator;
+    private final LongIdGenerator longIdGenerator;
+    private final UuidFormat uuidFormat;
+    private final int parallelThreshold;
+    private final ForkJoinPool parallelPool;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * @param parallelPool to format values on, {@code null} to always format them on the committing thread.
+     */
+    UuidValueGenerator(UuidStorageType storageType, UuidGenerator uuidGenerator, LongIdGenerator longIdGenerator, UuidFormat uuidFormat, int parallelThreshold, ForkJoinPool parallelPool) {
+        this.storageType = storageType;
+        this.uuidGenerator = uuidGenerator;
+        this.longIdGenerator = longIdGenerator;
+        this.uuidFormat = uuidFormat;
+        this.parallelThreshold = parallelThreshold;
+        this.parallelPool = parallelPool;
+    }
+
+    /**
+     * Generate a batch of values.
+     *
+     * @param entities the values will be assigned to, in order. Only used by {@link EntityUuidGenerator}s.
+     * @param count    number of values to generate, i.e. number of leading elements of {@code entities} to use.
+     * @return buffer with the values in its first {@code count} elements. The buffer is only valid until the next call
+     * on the same thread; elements should be cleared by the caller once they have been used.
+     */
+    Object[] generate(Entity[] entities, int count) {
+        Buffers buffers = this.buffers.get();
+        Object[] values = buffers.values(count);
+
+        if (storageType == UuidStorageType.LONG) {
+            long[] ids = buffers.bits(count);
+            longIdGenerator.generateIds(ids, count);
+            for (int i = 0; i < count; i++) {
+                values[i] = ids[i];
+            }
+            return values;
+        }
+
+        // bits are always generated on this thread: entity-derived UUIDs read the entities, which is only safe on the
+        // thread of the transaction, and batch-capable generators amortize best over a single batch
+        long[] bits = storageType == UuidStorageType.BINARY || uuidGenerator instanceof BinaryUuidGenerator ? generateBits(buffers, entities, count) : null;
+
+        if (bits == null) {
+            // text-only generators, e.g. pooled ones, are called in order on this thread and only formatted in parallel
+            for (int i = 0; i < count; i++) {
+                values[i] = uuidGenerator.generateUuid();
+            }
+        }
+
+        if (parallelPool != null && parallelThreshold > 0 && count >= parallelThreshold) {
+            parallelPool.invoke(new ValuesTask(values, bits, 0, count));
+        } else {
+            toValues(values, bits, 0, count);
+        }
+
+        return values;
+    }
+
+    /**
+     * Turn generated bits into values, or format generated {@link String}s if there are no bits because the generator
+     * only produces {@link String}s.
+     */
+    private void toValues(Object[] values, long[] bits, int from, int to) {
+        if (storageType == UuidStorageType.BINARY) {
+            for (int i = from; i < to; i++) {
+                values[i] = Uuids.toBytes(bits[2 * i], bits[2 * i + 1]);
+            }
+        } else if (bits != null) {
+            for (int i = from; i < to; i++) {
+                values[i] = uuidFormat.format(bits[2 * i], bits[2 * i + 1]);
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                values[i] = uuidFormat.format((String) values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return true iff values are derived from the entities they are assigned to, so they can't be generated up front.
+     */
+    boolean derivesFromEntities() {
+        return uuidGenerator instanceof EntityUuidGenerator;
+    }
+
+    /**
+     * Validate a value supplied by a client. Textual values are parsed according to the configured {@link UuidFormat},
+     * without allocating.
+     *
+     * @param value        to validate.
+     * @param uuidProperty the value has been supplied for.
+     * @throws DeliberateTransactionRollbackException if the value could not have been produced by this generator.
+     */
+    void validate(Object value, String uuidProperty) {
+        if (!parse(value, buffers.get().scratch, 0)) {
+            throw new DeliberateTransactionRollbackException(describe(value) + " is not a valid value of the " + uuidProperty + " property");
+        }
+    }
+
+    /**
+     * @return human-readable form of a value of the uuid property, for error messages.
+     */
+    static String describe(Object value) {
+        return value instanceof byte[] ? Arrays.toString((byte[]) value) : "'" + value + "'";
+    }
+
+    /**
+     * Parse a value of the uuid property to its 128 bits. {@code long} IDs occupy the least significant bits.
+     *
+     * @param value  to parse.
+     * @param target array to write the bits to, most significant bits to {@code target[offset]}, least significant bits
+     *               to {@code target[offset + 1]}.
+     * @param offset index of the most significant bits in the target array.
+     * @return true iff the value is of the configured storage type and format. Nothing is written otherwise.
+     */
+    boolean parse(Object value, long[] target, int offset) {
+        switch (storageType) {
+            case LONG:
+                if (!(value instanceof Long)) {
+                    return false;
+                }
+                target[offset] = 0;
+                target[offset + 1] = (Long) value;
+                return true;
+            case BINARY:
+                return value instanceof byte[] && Uuids.parse((byte[]) value, target, offset);
+            default:
+                return value instanceof String && uuidFormat.parse((String) value, target, offset);
+        }
+    }
+
+    private long[] generateBits(Buffers buffers, Entity[] entities, int count) {
+        long[] bits = buffers.bits(2 * count);
+
+        if (uuidGenerator instanceof EntityUuidGenerator) {
+            EntityUuidGenerator entityUuidGenerator = (EntityUuidGenerator) uuidGenerator;
+            for (int i = 0; i < count; i++) {
+                entityUuidGenerator.generateUuid(entities[i], bits, 2 * i);
+            }
+            return bits;
+        }
+
+        if (uuidGenerator instanceof BinaryUuidGenerator) {
+            ((BinaryUuidGenerator) uuidGenerator).generateUuids(bits, count);
+            return bits;
+        }
+
+        for (int i = 0; i < count; i++) {
+            String uuid = uuidGenerator.generateUuid();
+            if (!Uuids.parse(uuid, bits, 2 * i)) {
+                throw new IllegalStateException(uuidGenerator.getClass().getName() + " generated '" + uuid + "', which is not a UUID and cannot be stored as binary");
+            }
+        }
+
+        return bits;
+    }
+
+    private final class ValuesTask extends RecursiveAction {
+
+        private final Object[] values;
+        private final long[] bits;
+        private final int from;
+        private final int to;
+
+        private ValuesTask(Object[] values, long[] bits, int from, int to) {
+            this.values = values;
+            this.bits = bits;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_SLICE) {
+                toValues(values, bits, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ValuesTask(values, bits, from, middle), new ValuesTask(values, bits, middle, to));
+        }
+    }
+
+    private static final class Buffers {
+
+        private final long[] scratch = new long[2];
+        private long[] bits = new long[2];
+        private Object[] values = new Object[1];
+
+        private long[] bits(int size) {
+            if (size > bits.length) {
+                bits = new long[size];
+            }
+            return bits;
+        }
+
+        private Object[] values(int size) {
+            if (size > values.length) {
+                values = new Object[size];
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free conversions between the textual, binary and {@code long}-pair representations of UUIDs.
+ */
+public final class Uuids {
+
+    public static final int BINARY_LENGTH = 16;
+    public static final int CANONICAL_LENGTH = 36;
+    public static final int COMPACT_LENGTH = 32;
+
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private Uuids() {
+    }
+
+    /**
+     * Parse a UUID in canonical (with hyphens) or compact (without hyphens) hexadecimal form.
+     *
+     * @param uuid   to parse.
+     * @param target array to write the UUID to, most significant bits to {@code target[offset]}, least significant bits
+     *               to {@code target[offset + 1]}.
+     * @param offset index of the most significant bits in the target array.
+     * @return true iff the UUID was well-formed. Nothing is written to the target array otherwise.
+     */
+    public static boolean parse(CharSequence uuid, long[] target, int offset) {
+        return parseCanonical(uuid, target, offset) || parseCompact(uuid, target, offset);
+    }
+
+    /**
+     * Parse a UUID in canonical hexadecimal form, i.e. 36 characters with hyphens, in either case.
+     *
+     * @see #parse(CharSequence, long[], int)
+     */
+    public static boolean parseCanonical(CharSequence uuid, long[] target, int offset) {
+        if (uuid.length() != CANONICAL_LENGTH || uuid.charAt(8) != '-' || uuid.charAt(13) != '-' || uuid.charAt(18) != '-' || uuid.charAt(23) != '-') {
+            return false;
+        }
+
+        return parseHex(uuid, true, target, offset);
+    }
+
+    /**
+     * Parse a UUID in compact hexadecimal form, i.e. 32 characters without hyphens, in either case.
+     *
+     * @see #parse(CharSequence, long[], int)
+     */
+    public static boolean parseCompact(CharSequence uuid, long[] target, int offset) {
+        return uuid.length() == COMPACT_LENGTH && parseHex(uuid, false, target, offset);
+    }
+
+    /**
+     * Parse the binary form of a UUID.
+     *
+     * @param bytes  binary form of a UUID, see {@link #toBytes(long, long)}.
+     * @param target as in {@link #parse(CharSequence, long[], int)}.
+     * @param offset as in {@link #parse(CharSequence, long[], int)}.
+     * @return true iff the binary form has the right length. Nothing is written to the target array otherwise.
+     */
+    public static boolean parse(byte[] bytes, long[] target, int offset) {
+        if (bytes.length != BINARY_LENGTH) {
+            return false;
+        }
+
+        target[offset] = mostSignificantBits(bytes);
+        target[offset + 1] = leastSignificantBits(bytes);
+        return true;
+    }
+
+    private static boolean parseHex(CharSequence uuid, boolean hyphens, long[] target, int offset) {
+        int length = uuid.length();
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (hyphens && (i == 8 || i == 13 || i == 18 || i == 23)) {
+                continue;
+            }
+
+            char c = uuid.charAt(i);
+            int value = c < 128 ? HEX_VALUES[c] : -1;
+            if (value < 0) {
+                return false;
+            }
+
+            if (digits++ < 16) {
+                msb = (msb << 4) | value;
+            } else {
+                lsb = (lsb << 4) | value;
+            }
+        }
+
+        target[offset] = msb;
+        target[offset + 1] = lsb;
+        return true;
+    }
+
+    /**
+     * Convert a UUID to its 16-byte big-endian binary form.
+     *
+     * @param msb most significant bits.
+     * @param lsb least significant bits.
+     * @return binary form.
+     */
+    public static byte[] toBytes(long msb, long lsb) {
+        byte[] bytes = new byte[BINARY_LENGTH];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) msb;
+            bytes[i + 8] = (byte) lsb;
+            msb >>>= 8;
+            lsb >>>= 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * @param bytes binary form of a UUID, see {@link #toBytes(long, long)}.
+     * @return most significant bits of the UUID.
+     */
+    public static long mostSignificantBits(byte[] bytes) {
+        return readLong(bytes, 0);
+    }
+
+    /**
+     * @param bytes binary form of a UUID, see {@link #toBytes(long, long)}.
+     * @return least significant bits of the UUID.
+     */
+    public static long leastSignificantBits(byte[] bytes) {
+        return readLong(bytes, 8);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = (result << 8) | (bytes[i] & 0xFF);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.format;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link UuidFormat} producing a 22-character base62 encoding of a UUID as an unsigned 128-bit number, left-padded
+ * with zeros, e.g. {@code 0YQJpYwUwvbaLOwTUr4thA}. The alphabet is in ASCII order, so the encoded UUIDs sort the
+ * same way as the numbers they represent, which keeps time-ordered UUIDs time-ordered.
+ */
+public final class Base62UuidFormat implements UuidFormat {
+
+    public static final Base62UuidFormat INSTANCE = new Base62UuidFormat();
+
+    public static final int LENGTH = 22;
+
+    static final byte[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DIGITS = Base64UrlUuidFormat.decodingTable(ALPHABET);
+
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    private Base62UuidFormat() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(long msb, long lsb) {
+        // the 128-bit number as four unsigned 32-bit limbs, most significant first
+        long l0 = msb >>> 32;
+        long l1 = msb & INT_MASK;
+        long l2 = lsb >>> 32;
+        long l3 = lsb & INT_MASK;
+
+        byte[] chars = new byte[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            long remainder = l0 % 62;
+            l0 /= 62;
+
+            long dividend = remainder << 32 | l1;
+            l1 = dividend / 62;
+            remainder = dividend % 62;
+
+            dividend = remainder << 32 | l2;
+            l2 = dividend / 62;
+            remainder = dividend % 62;
+
+            dividend = remainder << 32 | l3;
+            l3 = dividend / 62;
+            remainder = dividend % 62;
+
+            chars[i] = ALPHABET[(int) remainder];
+        }
+
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean parse(CharSequence text, long[] target, int offset) {
+        if (text.length() != LENGTH) {
+            return false;
+        }
+
+        // the 128-bit number as four unsigned 32-bit limbs, most significant first
+        long l0 = 0;
+        long l1 = 0;
+        long l2 = 0;
+        long l3 = 0;
+
+        for (int i = 0; i < LENGTH; i++) {
+            char c = text.charAt(i);
+            int digit = c < 128 ? DIGITS[c] : -1;
+            if (digit < 0) {
+                return false;
+            }
+
+            l3 = l3 * 62 + digit;
+            l2 = l2 * 62 + (l3 >>> 32);
+            l1 = l1 * 62 + (l2 >>> 32);
+            l0 = l0 * 62 + (l1 >>> 32);
+            l3 &= INT_MASK;
+            l2 &= INT_MASK;
+            l1 &= INT_MASK;
+
+            // 22 base62 digits can encode numbers beyond 128 bits
+            if (l0 > INT_MASK) {
+                return false;
+            }
+        }
+
+        target[offset] = l0 << 32 | l1;
+        target[offset + 1] = l2 << 32 | l3;
+        return true;
+    }
+}
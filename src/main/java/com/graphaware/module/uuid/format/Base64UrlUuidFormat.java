@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.format;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link UuidFormat} producing the 22-character URL-safe base64 encoding (RFC 4648, section 5, without padding) of
+ * the 16 big-endian bytes of a UUID, e.g. {@code Ej5FZ-ibEtOkVkJmFBdAAA}.
+ */
+public final class Base64UrlUuidFormat implements UuidFormat {
+
+    public static final Base64UrlUuidFormat INSTANCE = new Base64UrlUuidFormat();
+
+    public static final int LENGTH = 22;
+
+    static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] SEXTETS = decodingTable(ALPHABET);
+
+    private Base64UrlUuidFormat() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(long msb, long lsb) {
+        byte[] chars = new byte[LENGTH];
+        writeSextets(msb >>> 4, chars, 0);
+        chars[10] = ALPHABET[(int) ((msb & 0xF) << 2 | lsb >>> 62)];
+        writeSextets(lsb >>> 2, chars, 11);
+        chars[21] = ALPHABET[(int) (lsb & 0x3) << 4];
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean parse(CharSequence text, long[] target, int offset) {
+        if (text.length() != LENGTH) {
+            return false;
+        }
+
+        long high = readSextets(text, 0);
+        long low = readSextets(text, 11);
+        int middle = sextet(text, 10);
+        int last = sextet(text, 21);
+
+        // the last digit only carries 2 bits, a canonical encoding leaves the other 4 clear
+        if (high < 0 || low < 0 || middle < 0 || last < 0 || (last & 0xF) != 0) {
+            return false;
+        }
+
+        target[offset] = high << 4 | middle >>> 2;
+        target[offset + 1] = (long) (middle & 0x3) << 62 | low << 2 | last >>> 4;
+        return true;
+    }
+
+    /**
+     * Read 10 base64 digits as a 60-bit value, most significant first.
+     *
+     * @return the value, or -1 if any of the digits is invalid.
+     */
+    private static long readSextets(CharSequence text, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 10; i++) {
+            int sextet = sextet(text, i);
+            if (sextet < 0) {
+                return -1;
+            }
+            value = value << 6 | sextet;
+        }
+        return value;
+    }
+
+    private static int sextet(CharSequence text, int index) {
+        char c = text.charAt(index);
+        return c < 128 ? SEXTETS[c] : -1;
+    }
+
+    /**
+     * @return table of the values of ASCII characters in the given alphabet, -1 for characters not in it.
+     */
+    static byte[] decodingTable(byte[] alphabet) {
+        byte[] table = new byte[128];
+        Arrays.fill(table, (byte) -1);
+        for (int i = 0; i < alphabet.length; i++) {
+            table[alphabet[i]] = (byte) i;
+        }
+        return table;
+    }
+
+    /**
+     * Write the lowest 60 bits of a value as 10 base64 digits, most significant first.
+     */
+    private static void writeSextets(long value, byte[] target, int offset) {
+        for (int i = offset + 9; i >= offset; i--) {
+            target[i] = ALPHABET[(int) value & 0x3F];
+            value >>>= 6;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.format;
+
+import com.graphaware.module.uuid.Uuids;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link UuidFormat} producing the canonical 36-character lower-case hexadecimal form with hyphens, e.g.
+ * {@code 123e4567-e89b-12d3-a456-426614174000}. Text produced by generators is kept as it is.
+ */
+public final class CanonicalUuidFormat implements UuidFormat {
+
+    public static final CanonicalUuidFormat INSTANCE = new CanonicalUuidFormat();
+
+    public static final int LENGTH = 36;
+
+    /**
+     * Two lower-case hex digits for every byte value.
+     */
+    static final byte[] HEX_PAIRS = new byte[512];
+
+    static {
+        byte[] digits = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS[2 * i] = digits[i >>> 4];
+            HEX_PAIRS[2 * i + 1] = digits[i & 0xF];
+        }
+    }
+
+    private CanonicalUuidFormat() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(long msb, long lsb) {
+        byte[] chars = new byte[LENGTH];
+        writeHex(msb >>> 32, chars, 0, 4);
+        chars[8] = '-';
+        writeHex(msb >>> 16, chars, 9, 2);
+        chars[13] = '-';
+        writeHex(msb, chars, 14, 2);
+        chars[18] = '-';
+        writeHex(lsb >>> 48, chars, 19, 2);
+        chars[23] = '-';
+        writeHex(lsb, chars, 24, 6);
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(String uuid) {
+        return uuid;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean parse(CharSequence text, long[] target, int offset) {
+        return Uuids.parseCanonical(text, target, offset);
+    }
+
+    /**
+     * Write the given number of lowest bytes of a value as hex digits, most significant first.
+     */
+    static void writeHex(long value, byte[] target, int offset, int bytes) {
+        for (int i = offset + 2 * (bytes - 1); i >= offset; i -= 2) {
+            int pair = ((int) value & 0xFF) << 1;
+            target[i] = HEX_PAIRS[pair];
+            target[i + 1] = HEX_PAIRS[pair + 1];
+            value >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.format;
+
+import com.graphaware.module.uuid.Uuids;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link UuidFormat} producing 32 lower-case hexadecimal digits without hyphens, e.g.
+ * {@code 123e4567e89b12d3a456426614174000}. Text produced by generators is stripped of hyphens.
+ */
+public final class CompactUuidFormat implements UuidFormat {
+
+    public static final CompactUuidFormat INSTANCE = new CompactUuidFormat();
+
+    public static final int LENGTH = 32;
+
+    private CompactUuidFormat() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(long msb, long lsb) {
+        byte[] chars = new byte[LENGTH];
+        CanonicalUuidFormat.writeHex(msb, chars, 0, 8);
+        CanonicalUuidFormat.writeHex(lsb, chars, 16, 8);
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(String uuid) {
+        int length = uuid.length();
+        int hyphen = uuid.indexOf('-');
+
+        if (hyphen < 0) {
+            return uuid;
+        }
+
+        char[] chars = new char[length - 1];
+        uuid.getChars(0, hyphen, chars, 0);
+
+        int count = hyphen;
+        for (int i = hyphen + 1; i < length; i++) {
+            char c = uuid.charAt(i);
+            if (c != '-') {
+                chars[count++] = c;
+            }
+        }
+
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean parse(CharSequence text, long[] target, int offset) {
+        return Uuids.parseCompact(text, target, offset);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.format;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link UuidFormat} producing the 26-character <a href="https://github.com/ulid/spec">ULID</a> encoding of the 128
+ * bits of a UUID, i.e. Crockford's base32 with the most significant digit carrying only 3 bits, e.g.
+ * {@code 01ARZ3NDEKTSV4RRFFQ69G5FAV}. Text produced by generators is kept as it is if it is a ULID, which makes this the
+ * format of {@link com.graphaware.module.uuid.generator.UlidGenerator}. Parsing is case-insensitive, as the ULID
+ * specification requires.
+ */
+public final class UlidUuidFormat implements UuidFormat {
+
+    public static final UlidUuidFormat INSTANCE = new UlidUuidFormat();
+
+    public static final int LENGTH = 26;
+
+    static final byte[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] QUINTETS = decodingTable();
+
+    private UlidUuidFormat() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(long msb, long lsb) {
+        byte[] chars = new byte[LENGTH];
+        writeQuintets(msb >>> 1, chars, 0, 13);
+        chars[13] = ALPHABET[(int) ((msb & 0x1) << 4 | lsb >>> 60)];
+        writeQuintets(lsb, chars, 14, 12);
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(String uuid) {
+        if (uuid.length() == LENGTH && isUlid(uuid)) {
+            return uuid;
+        }
+
+        return UuidFormat.super.format(uuid);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean parse(CharSequence text, long[] target, int offset) {
+        if (text.length() != LENGTH) {
+            return false;
+        }
+
+        // the first digit only carries 3 bits, anything larger would overflow 128 bits
+        long high = readQuintets(text, 0, 13);
+        int middle = quintet(text, 13);
+        long low = readQuintets(text, 14, 12);
+
+        if (high < 0 || middle < 0 || low < 0 || quintet(text, 0) > 7) {
+            return false;
+        }
+
+        target[offset] = high << 1 | middle >>> 4;
+        target[offset + 1] = (long) (middle & 0xF) << 60 | low;
+        return true;
+    }
+
+    private boolean isUlid(CharSequence text) {
+        for (int i = 0; i < LENGTH; i++) {
+            if (quintet(text, i) < 0) {
+                return false;
+            }
+        }
+        return quintet(text, 0) <= 7;
+    }
+
+    /**
+     * Read base32 digits as a value, most significant first.
+     *
+     * @return the value, or -1 if any of the digits is invalid.
+     */
+    private static long readQuintets(CharSequence text, int offset, int digits) {
+        long value = 0;
+        for (int i = offset; i < offset + digits; i++) {
+            int quintet = quintet(text, i);
+            if (quintet < 0) {
+                return -1;
+            }
+            value = value << 5 | quintet;
+        }
+        return value;
+    }
+
+    /**
+     * Decode a single base32 digit, in either case.
+     *
+     * @param text  to decode a digit of.
+     * @param index of the digit.
+     * @return value of the digit, or -1 if the character is not a base32 digit.
+     */
+    public static int quintet(CharSequence text, int index) {
+        char c = text.charAt(index);
+        return c < 128 ? QUINTETS[c] : -1;
+    }
+
+    /**
+     * @return table of the values of upper- and lower-case ASCII base32 digits, -1 for other characters.
+     */
+    private static byte[] decodingTable() {
+        byte[] table = Base64UrlUuidFormat.decodingTable(ALPHABET);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            table[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+        return table;
+    }
+
+    /**
+     * Write the lowest {@code 5 * digits} bits of a value as upper-case base32 digits, most significant first.
+     *
+     * @param value  to write.
+     * @param target to write the digits to, as ASCII.
+     * @param offset of the first digit in the target.
+     * @param digits number of digits to write.
+     */
+    public static void writeQuintets(long value, byte[] target, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            target[i] = ALPHABET[(int) value & 0x1F];
+            value >>>= 5;
+        }
+    }
+}
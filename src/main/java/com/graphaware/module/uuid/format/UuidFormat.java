@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.format;
+
+import com.graphaware.module.uuid.Uuids;
+
+/**
+ * Textual encoding of UUIDs stored by the {@link com.graphaware.module.uuid.UuidModule} with
+ * {@link com.graphaware.module.uuid.UuidStorageType#STRING}. Implementations must be thread-safe and should produce
+ * the text in a single pass, without intermediate objects.
+ */
+public interface UuidFormat {
+
+    /**
+     * Encode a UUID.
+     *
+     * @param msb most significant 64 bits.
+     * @param lsb least significant 64 bits.
+     * @return encoded UUID.
+     */
+    String format(long msb, long lsb);
+
+    /**
+     * Encode a UUID produced as text by a {@link com.graphaware.common.uuid.UuidGenerator} that can't produce its bits
+     * directly. By default, the text is parsed as a canonical or hyphen-less UUID and then encoded.
+     *
+     * @param uuid text produced by a generator.
+     * @return encoded UUID.
+     * @throws IllegalArgumentException if the text can't be encoded in this format.
+     */
+    default String format(String uuid) {
+        long[] bits = new long[2];
+
+        if (!Uuids.parse(uuid, bits, 0)) {
+            throw new IllegalArgumentException("'" + uuid + "' is not a UUID and can't be encoded by " + getClass().getSimpleName());
+        }
+
+        return format(bits[0], bits[1]);
+    }
+
+    /**
+     * Parse text encoded in this format, e.g. to validate a UUID supplied by a client. Implementations should not
+     * allocate. By default, the text is parsed as a canonical or hyphen-less UUID.
+     *
+     * @param text   to parse.
+     * @param target array to write the UUID to, most significant bits to {@code target[offset]}, least significant bits
+     *               to {@code target[offset + 1]}.
+     * @param offset index of the most significant bits in the target array.
+     * @return true iff the text is a UUID encoded in this format. Nothing is written to the target array otherwise.
+     */
+    default boolean parse(CharSequence text, long[] target, int offset) {
+        return Uuids.parse(text, target, offset);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.format;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Resolution of {@link UuidFormat}s by name.
+ */
+public final class UuidFormats {
+
+    public static final String CANONICAL = "canonical";
+    public static final String COMPACT = "compact";
+    public static final String BASE64URL = "base64url";
+    public static final String BASE62 = "base62";
+    public static final String ULID = "ulid";
+
+    private UuidFormats() {
+    }
+
+    /**
+     * Resolve a format.
+     *
+     * @param name        one of {@link #CANONICAL}, {@link #COMPACT}, {@link #BASE64URL}, {@link #BASE62}, {@link #ULID}, or a fully
+     *                    qualified name of a {@link UuidFormat} implementation with a public no-arg constructor.
+     * @param classLoader to load custom implementations with.
+     * @return format.
+     */
+    public static UuidFormat forName(String name, ClassLoader classLoader) {
+        switch (name) {
+            case CANONICAL:
+                return CanonicalUuidFormat.INSTANCE;
+            case COMPACT:
+                return CompactUuidFormat.INSTANCE;
+            case BASE64URL:
+                return Base64UrlUuidFormat.INSTANCE;
+            case BASE62:
+                return Base62UuidFormat.INSTANCE;
+            case ULID:
+                return UlidUuidFormat.INSTANCE;
+            default:
+                try {
+                    return (UuidFormat) ClassUtils.forName(name, classLoader).getDeclaredConstructor().newInstance();
+                } catch (Exception e) {
+                    throw new RuntimeException("Unable to instantiate UuidFormat of type '" + name + "'", e);
+                }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.common.uuid.UuidGenerator;
+
+/**
+ * A {@link UuidGenerator} that can produce the 128 bits of a UUID directly, without going through its {@link String}
+ * representation. Used by the {@link com.graphaware.module.uuid.UuidModule} whenever it needs the bits rather than
+ * the text, e.g. with {@link com.graphaware.module.uuid.UuidStorageType#BINARY}.
+ */
+public interface BinaryUuidGenerator extends UuidGenerator {
+
+    /**
+     * Generate a new UUID.
+     *
+     * @param target array to write the UUID to. The most significant 64 bits are written to {@code target[offset]},
+     *               the least significant 64 bits to {@code target[offset + 1]}.
+     * @param offset index of the most significant bits in the target array.
+     */
+    void generateUuid(long[] target, int offset);
+
+    /**
+     * Generate a batch of new UUIDs. Implementations should override this method if they can amortize locking,
+     * clock reads or random number generation across the batch.
+     *
+     * @param target array to write the UUIDs to, the most significant bits of the i-th UUID to {@code target[2 * i]},
+     *               its least significant bits to {@code target[2 * i + 1]}.
+     * @param count  number of UUIDs to generate.
+     */
+    default void generateUuids(long[] target, int count) {
+        for (int i = 0; i < count; i++) {
+            generateUuid(target, 2 * i);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import org.neo4j.graphdb.Entity;
+
+/**
+ * A {@link BinaryUuidGenerator} that derives UUIDs from the entities they are assigned to, rather than generating them
+ * independently. Called by the {@link com.graphaware.module.uuid.UuidModule} on the committing thread, with the entity
+ * in the state it is about to be committed in.
+ */
+public interface EntityUuidGenerator extends BinaryUuidGenerator {
+
+    /**
+     * Generate a UUID for an entity. Implementations that can't derive a UUID from the given entity should generate
+     * one by {@link #generateUuid(long[], int)}.
+     *
+     * @param entity the UUID will be assigned to.
+     * @param target array to write the UUID to, most significant bits to {@code target[offset]}, least significant bits
+     *               to {@code target[offset + 1]}.
+     * @param offset index of the most significant bits in the target array.
+     */
+    void generateUuid(Entity entity, long[] target, int offset);
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.format.CanonicalUuidFormat;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link BinaryUuidGenerator} producing random (version 4) UUIDs from {@link ThreadLocalRandom}.
+ * <p/>
+ * This generator is <b>not cryptographically secure</b>: the generated UUIDs are unique for all practical purposes,
+ * but they can be predicted by anyone who has seen enough of them. Only use it when UUIDs don't need to be unguessable;
+ * in exchange, it never blocks nor contends between threads.
+ */
+public class FastRandomUuidGenerator implements BinaryUuidGenerator {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String generateUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return CanonicalUuidFormat.INSTANCE.format(RandomUuids.version4Msb(random.nextLong()), RandomUuids.version4Lsb(random.nextLong()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateUuid(long[] target, int offset) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        target[offset] = RandomUuids.version4Msb(random.nextLong());
+        target[offset + 1] = RandomUuids.version4Lsb(random.nextLong());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateUuids(long[] target, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 2 * count; i += 2) {
+            target[i] = RandomUuids.version4Msb(random.nextLong());
+            target[i + 1] = RandomUuids.version4Lsb(random.nextLong());
+        }
+    }
+}
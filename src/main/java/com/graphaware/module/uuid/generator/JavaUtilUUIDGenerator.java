@@ -2,17 +2,22 @@ package com.graphaware.module.uuid.generator;
 
 import java.util.UUID;
 
-import com.graphaware.common.uuid.UuidGenerator;
-
 /**
  * A simple UuidGenerator implementation that makes use of java.util.UUID to generate UUID's.
  */
-public class JavaUtilUUIDGenerator implements UuidGenerator {
+public class JavaUtilUUIDGenerator implements BinaryUuidGenerator {
 
 	@Override
 	public String generateUuid() {
 		UUID uuid = UUID.randomUUID();
 		return uuid.toString();
 	}
+
+	@Override
+	public void generateUuid(long[] target, int offset) {
+		UUID uuid = UUID.randomUUID();
+		target[offset] = uuid.getMostSignificantBits();
+		target[offset + 1] = uuid.getLeastSignificantBits();
+	}
 	
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+/**
+ * A generator of unique 64-bit identifiers, used by the {@link com.graphaware.module.uuid.UuidModule} when configured
+ * with {@link com.graphaware.module.uuid.UuidStorageType#LONG}. Implementations must be thread-safe.
+ */
+public interface LongIdGenerator {
+
+    /**
+     * Generate a new unique identifier.
+     *
+     * @return identifier.
+     */
+    long generateId();
+
+    /**
+     * Generate a batch of new unique identifiers. Implementations should override this method if they can amortize
+     * locking or clock reads across the batch.
+     *
+     * @param target array to write the identifiers to.
+     * @param count  number of identifiers to generate.
+     */
+    default void generateIds(long[] target, int count) {
+        for (int i = 0; i < count; i++) {
+            target[i] = generateId();
+        }
+    }
+}
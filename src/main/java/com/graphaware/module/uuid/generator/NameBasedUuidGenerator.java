@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+import com.graphaware.module.uuid.Uuids;
+import com.graphaware.module.uuid.format.CanonicalUuidFormat;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link EntityUuidGenerator} producing deterministic name-based (version 5) UUIDs, so that re-importing the same
+ * data yields the same UUIDs and clients can compute UUIDs themselves, without asking the database.
+ * <p/>
+ * The UUID of an entity is derived from the configured namespace ({@link UuidConfiguration#getNameNamespace()}) and a
+ * name, built from the first configured label the node has (or the type of the relationship) and the values of the
+ * properties configured for it ({@link UuidConfiguration#getNameProperties()}), all joined by {@link #SEPARATOR} and
+ * encoded in UTF-8. For example, a node with label {@code Person} configured with properties {@code [tenant, email]}
+ * gets UUID v5 of name {@code "Person\u001Facme\u001Falice@example.com"}, see also {@link #uuid(String, String, Object...)}.
+ * <p/>
+ * Property values are converted to text by {@link String#valueOf(Object)}; arrays are not supported. Entities that
+ * don't have any of the configured labels/types, or miss any of the configured properties, get a random UUID.
+ * <p/>
+ * SHA-1 digests and name buffers are reused per thread, so for {@link String} and integral property values, nothing
+ * but the result is allocated per UUID.
+ */
+public class NameBasedUuidGenerator implements EntityUuidGenerator, UuidConfigurationAware {
+
+    public static final char SEPARATOR = '\u001F';
+
+    private final BinaryUuidGenerator fallback = new StripedSecureRandomUuidGenerator();
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    private byte[] namespace;
+    private Label[] labels;
+    private RelationshipType[] types;
+    private String[][] properties;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void configure(UuidConfiguration configuration) {
+        String nameNamespace = configuration.getNameNamespace();
+        long[] bits = new long[2];
+
+        if (nameNamespace == null || !Uuids.parse(nameNamespace, bits, 0)) {
+            throw new IllegalStateException("Name-based UUIDs require a namespace UUID, configured: " + nameNamespace);
+        }
+
+        Map<String, List<String>> nameProperties = configuration.getNameProperties();
+
+        this.namespace = Uuids.toBytes(bits[0], bits[1]);
+        this.labels = new Label[nameProperties.size()];
+        this.types = new RelationshipType[nameProperties.size()];
+        this.properties = new String[nameProperties.size()][];
+
+        int i = 0;
+        for (Map.Entry<String, List<String>> entry : nameProperties.entrySet()) {
+            labels[i] = Label.label(entry.getKey());
+            types[i] = RelationshipType.withName(entry.getKey());
+            properties[i] = entry.getValue().toArray(new String[0]);
+            i++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String generateUuid() {
+        return fallback.generateUuid();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateUuid(long[] target, int offset) {
+        fallback.generateUuid(target, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateUuid(Entity entity, long[] target, int offset) {
+        int index = applicableIndex(entity);
+
+        if (index < 0 || !hasAllProperties(entity, properties[index])) {
+            fallback.generateUuid(target, offset);
+            return;
+        }
+
+        State state = this.state.get();
+        state.length = 0;
+        state.append(labels[index].name());
+
+        for (String property : properties[index]) {
+            state.append(SEPARATOR);
+            state.append(entity.getProperty(property));
+        }
+
+        state.hash(namespace, target, offset);
+    }
+
+    /**
+     * Compute a name-based UUID the same way as this generator does, e.g. on the client side.
+     *
+     * @param namespace   namespace UUID in canonical form.
+     * @param labelOrType label of the node or type of the relationship.
+     * @param values      values of the configured properties, in the configured order.
+     * @return UUID in canonical form.
+     */
+    public static String uuid(String namespace, String labelOrType, Object... values) {
+        long[] bits = new long[2];
+        if (!Uuids.parse(namespace, bits, 0)) {
+            throw new IllegalArgumentException(namespace + " is not a UUID");
+        }
+
+        State state = new State();
+        state.append(labelOrType);
+        for (Object value : values) {
+            state.append(SEPARATOR);
+            state.append(value);
+        }
+        state.hash(Uuids.toBytes(bits[0], bits[1]), bits, 0);
+
+        return CanonicalUuidFormat.INSTANCE.format(bits[0], bits[1]);
+    }
+
+    private int applicableIndex(Entity entity) {
+        if (entity instanceof Node) {
+            Node node = (Node) entity;
+            for (int i = 0; i < labels.length; i++) {
+                if (node.hasLabel(labels[i])) {
+                    return i;
+                }
+            }
+        } else if (entity instanceof Relationship) {
+            Relationship relationship = (Relationship) entity;
+            for (int i = 0; i < types.length; i++) {
+                if (relationship.isType(types[i])) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean hasAllProperties(Entity entity, String[] properties) {
+        for (String property : properties) {
+            if (!entity.hasProperty(property)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Per-thread digest and buffers.
+     */
+    private static final class State {
+
+        private final MessageDigest sha1;
+        private final byte[] hash = new byte[20];
+        private byte[] name = new byte[256];
+        private int length;
+
+        private State() {
+            try {
+                sha1 = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-1 is not available", e);
+            }
+        }
+
+        private void append(Object value) {
+            if (value instanceof String) {
+                append((String) value);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                append(((Number) value).longValue());
+            } else if (value != null && value.getClass().isArray()) {
+                throw new IllegalArgumentException("Array properties can't be used for name-based UUIDs");
+            } else {
+                append(String.valueOf(value));
+            }
+        }
+
+        private void append(long value) {
+            if (value == Long.MIN_VALUE) {
+                append(Long.toString(value));
+                return;
+            }
+
+            if (value < 0) {
+                append('-');
+                value = -value;
+            }
+
+            int digits = 1;
+            for (long v = value; v >= 10; v /= 10) {
+                digits++;
+            }
+
+            ensureCapacity(digits);
+            for (int i = length + digits - 1; i >= length; i--) {
+                name[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+        }
+
+        private void append(String value) {
+            int chars = value.length();
+            ensureCapacity(3 * chars);
+
+            for (int i = 0; i < chars; i++) {
+                char c = value.charAt(i);
+
+                if (c < 0x80) {
+                    name[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    name[length++] = (byte) (0xC0 | c >> 6);
+                    name[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    name[length++] = (byte) (0xF0 | codePoint >> 18);
+                    name[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    name[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    name[length++] = (byte) (0x80 | codePoint & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    name[length++] = '?';
+                } else {
+                    name[length++] = (byte) (0xE0 | c >> 12);
+                    name[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    name[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+        }
+
+        private void append(char c) {
+            ensureCapacity(1);
+            name[length++] = (byte) c;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > name.length) {
+                byte[] larger = new byte[Math.max(2 * name.length, length + additional)];
+                System.arraycopy(name, 0, larger, 0, length);
+                name = larger;
+            }
+        }
+
+        private void hash(byte[] namespace, long[] target, int offset) {
+            sha1.reset();
+            sha1.update(namespace);
+            sha1.update(name, 0, length);
+
+            try {
+                sha1.digest(hash, 0, hash.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+
+            target[offset] = (Uuids.mostSignificantBits(hash) & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000005000L;
+            target[offset + 1] = (Uuids.leastSignificantBits(hash) & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        }
+    }
+}
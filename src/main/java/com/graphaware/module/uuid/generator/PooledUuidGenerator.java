@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.common.uuid.UuidGenerator;
+import org.neo4j.logging.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link UuidGenerator} decorator that hands out UUIDs pre-generated by a background thread into a bounded, lock-free
+ * ring buffer, so that the cost of the decorated generator is not paid by committing threads.
+ * <p/>
+ * The ring has a single producer (the refill thread) and many consumers. Once the number of available UUIDs drops to
+ * the low-water mark, the refill thread is woken up and fills the ring back to capacity. When the ring is empty,
+ * UUIDs are generated inline by the decorated generator, which therefore must be thread-safe.
+ */
+public class PooledUuidGenerator implements UuidGenerator, AutoCloseable {
+
+    private static final Log LOG = LoggerFactory.getLogger(PooledUuidGenerator.class);
+
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final UuidGenerator delegate;
+    private final int capacity;
+    private final int mask;
+    private final int lowWaterMark;
+    private final AtomicReferenceArray<String> ring;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private final Thread refiller;
+
+    private volatile boolean running;
+
+    /**
+     * Create a new pooled generator. {@link #start()} must be called before the pool starts filling up.
+     *
+     * @param delegate     generator producing the pooled UUIDs. Must be thread-safe.
+     * @param capacity     maximum number of pre-generated UUIDs, rounded up to the nearest power of two.
+     * @param lowWaterMark number of available UUIDs at or below which the ring is refilled.
+     */
+    public PooledUuidGenerator(UuidGenerator delegate, int capacity, int lowWaterMark) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30, was " + capacity);
+        }
+
+        this.delegate = delegate;
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+        if (lowWaterMark < 0 || lowWaterMark >= this.capacity) {
+            throw new IllegalArgumentException("Low-water mark must be between 0 and " + (this.capacity - 1) + ", was " + lowWaterMark);
+        }
+
+        this.mask = this.capacity - 1;
+        this.lowWaterMark = lowWaterMark;
+        this.ring = new AtomicReferenceArray<>(this.capacity);
+        this.refiller = new Thread(this::refill, "GraphAware-UUID-Pool-" + delegate.getClass().getSimpleName());
+        this.refiller.setDaemon(true);
+    }
+
+    /**
+     * Start the background refill thread.
+     */
+    public void start() {
+        running = true;
+        refiller.start();
+    }
+
+    /**
+     * Stop the background refill thread. UUIDs left in the ring are still handed out, after which the decorated
+     * generator is used inline.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(refiller);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String generateUuid() {
+        String uuid = poll();
+
+        if (uuid == null) {
+            return delegate.generateUuid();
+        }
+
+        return uuid;
+    }
+
+    /**
+     * @return decorated generator.
+     */
+    public UuidGenerator getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return capacity of the ring.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of pre-generated UUIDs currently available. Only an estimate while other threads are active.
+     */
+    public int available() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    private String poll() {
+        while (true) {
+            long h = head.get();
+            long t = tail.get();
+
+            if (h >= t) {
+                wakeUpRefiller();
+                return null;
+            }
+
+            int index = (int) h & mask;
+            String uuid = ring.get(index);
+
+            if (head.compareAndSet(h, h + 1)) {
+                // don't keep handed out UUIDs reachable; the refill thread may already have reused the slot
+                ring.compareAndSet(index, uuid, null);
+                if (t - h - 1 <= lowWaterMark) {
+                    wakeUpRefiller();
+                }
+                return uuid;
+            }
+        }
+    }
+
+    private void wakeUpRefiller() {
+        if (idle.get() && idle.compareAndSet(true, false)) {
+            LockSupport.unpark(refiller);
+        }
+    }
+
+    private void refill() {
+        long t = tail.get();
+
+        while (running) {
+            try {
+                while (running && t - head.get() < capacity) {
+                    ring.set((int) t & mask, delegate.generateUuid());
+                    tail.lazySet(++t);
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to pre-generate UUID, will retry", e);
+                LockSupport.parkNanos(this, MAX_IDLE_NANOS);
+                continue;
+            }
+
+            idle.set(true);
+            if (running && t - head.get() > lowWaterMark) {
+                LockSupport.parkNanos(this, MAX_IDLE_NANOS);
+            }
+            idle.set(false);
+        }
+    }
+}
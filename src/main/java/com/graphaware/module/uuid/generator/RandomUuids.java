@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+/**
+ * Turning random bits into version 4 UUIDs.
+ */
+final class RandomUuids {
+
+    private RandomUuids() {
+    }
+
+    static long version4Msb(long random) {
+        return (random & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+    }
+
+    static long version4Lsb(long random) {
+        return (random & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    }
+}
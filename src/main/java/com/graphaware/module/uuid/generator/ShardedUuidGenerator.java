@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+import com.graphaware.module.uuid.Uuids;
+import com.graphaware.module.uuid.format.CanonicalUuidFormat;
+import com.graphaware.module.uuid.format.UuidFormat;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link BinaryUuidGenerator} producing version 8 (custom) UUIDs that embed the shard ID configured by
+ * {@link UuidConfiguration#withShardId(int)}, so that UUIDs generated by different databases never collide and the
+ * database owning an entity can be told from its UUID alone, see {@link #shardId(CharSequence)}.
+ * <p/>
+ * Layout: 48 bits of Unix epoch milliseconds, 4 version bits, a 12-bit counter, 2 variant bits, a 16-bit shard ID and
+ * 46 random bits. Time and counter are shared with {@link UuidV7Generator}, so the generated UUIDs are time-ordered and
+ * strictly monotonic within this JVM.
+ * <p/>
+ * The random bits come from {@link java.util.concurrent.ThreadLocalRandom}, so the generated UUIDs are not meant to be
+ * unguessable.
+ */
+public class ShardedUuidGenerator implements BinaryUuidGenerator, UuidConfigurationAware {
+
+    public static final int MAX_SHARD_ID = 0xFFFF;
+
+    private static final int SHARD_SHIFT = 46;
+    private static final long VERSION_MASK = 0xFFFFFFFFFFFF0FFFL;
+    private static final long VERSION = 0x8000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long RANDOM_MASK = (1L << SHARD_SHIFT) - 1;
+
+    private long shardBits = VARIANT;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void configure(UuidConfiguration configuration) {
+        this.shardBits = VARIANT | ((long) configuration.getShardId() << SHARD_SHIFT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String generateUuid() {
+        return CanonicalUuidFormat.INSTANCE.format(mostSignificantBits(UuidV7Generator.nextTimeAndCounter()), leastSignificantBits(ThreadLocalRandom.current()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateUuid(long[] target, int offset) {
+        target[offset] = mostSignificantBits(UuidV7Generator.nextTimeAndCounter());
+        target[offset + 1] = leastSignificantBits(ThreadLocalRandom.current());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Reserves counter values for the whole batch with a single clock read and CAS.
+     */
+    @Override
+    public void generateUuids(long[] target, int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        long first = UuidV7Generator.reserveTimeAndCounter(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < count; i++) {
+            target[2 * i] = mostSignificantBits(first + i);
+            target[2 * i + 1] = leastSignificantBits(random);
+        }
+    }
+
+    /**
+     * Extract the shard ID from the least significant bits of a UUID generated by this generator.
+     *
+     * @param leastSignificantBits of the UUID.
+     * @return shard ID.
+     */
+    public static int shardId(long leastSignificantBits) {
+        return (int) (leastSignificantBits >>> SHARD_SHIFT) & MAX_SHARD_ID;
+    }
+
+    /**
+     * Extract the shard ID from a UUID generated by this generator, stored in binary form.
+     *
+     * @param uuid 16 bytes, big-endian.
+     * @return shard ID.
+     */
+    public static int shardId(byte[] uuid) {
+        if (uuid.length != Uuids.BINARY_LENGTH) {
+            throw new IllegalArgumentException("A binary UUID must have " + Uuids.BINARY_LENGTH + " bytes, had " + uuid.length);
+        }
+
+        int bits = (uuid[8] & 0xFF) << 16 | (uuid[9] & 0xFF) << 8 | (uuid[10] & 0xFF);
+        return (bits >>> (SHARD_SHIFT - 40)) & MAX_SHARD_ID;
+    }
+
+    /**
+     * Extract the shard ID from a UUID generated by this generator, in canonical or hyphen-less form.
+     *
+     * @param uuid to extract the shard ID from.
+     * @return shard ID.
+     */
+    public static int shardId(CharSequence uuid) {
+        int start;
+
+        if (uuid.length() == Uuids.CANONICAL_LENGTH) {
+            start = 19;
+        } else if (uuid.length() == Uuids.COMPACT_LENGTH) {
+            start = 16;
+        } else {
+            throw new IllegalArgumentException(uuid + " is not a UUID in canonical or hyphen-less form");
+        }
+
+        int bits = 0;
+        for (int i = start, digits = 0; digits < 5; i++) {
+            char c = uuid.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException(uuid + " is not a UUID in canonical or hyphen-less form");
+            }
+
+            bits = (bits << 4) | digit;
+            digits++;
+        }
+
+        return (bits >>> (SHARD_SHIFT - 44)) & MAX_SHARD_ID;
+    }
+
+    /**
+     * Extract the shard ID from a UUID generated by this generator and stored as text in the given format, e.g. the
+     * configured {@link com.graphaware.module.uuid.format.Base62UuidFormat base62} or
+     * {@link com.graphaware.module.uuid.format.Base64UrlUuidFormat base64url}, see
+     * {@link com.graphaware.module.uuid.format.UuidFormats#forName(String, ClassLoader)}.
+     *
+     * @param uuid   to extract the shard ID from.
+     * @param format the UUID is encoded in.
+     * @return shard ID.
+     */
+    public static int shardId(CharSequence uuid, UuidFormat format) {
+        long[] bits = new long[2];
+
+        if (!format.parse(uuid, bits, 0)) {
+            throw new IllegalArgumentException(uuid + " is not a UUID encoded by " + format.getClass().getSimpleName());
+        }
+
+        return shardId(bits[1]);
+    }
+
+    private static long mostSignificantBits(long timeAndCounter) {
+        return (UuidV7Generator.mostSignificantBits(timeAndCounter) & VERSION_MASK) | VERSION;
+    }
+
+    private long leastSignificantBits(ThreadLocalRandom random) {
+        return shardBits | (random.nextLong() & RANDOM_MASK);
+    }
+}
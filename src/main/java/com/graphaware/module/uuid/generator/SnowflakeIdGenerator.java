@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link LongIdGenerator} producing Snowflake-style 64-bit identifiers: a zero sign bit, 41 bits of milliseconds since
+ * {@link #EPOCH}, 10 bits of worker ID and a 12-bit sequence number. Identifiers generated by the same instance are
+ * strictly increasing, identifiers generated by instances with different worker IDs never clash.
+ * <p/>
+ * The timestamp and sequence number are advanced with a single CAS, so the generator is lock-free. Should more than
+ * 4096 identifiers be requested within a millisecond, the sequence number carries over into the timestamp, which then
+ * briefly runs ahead of the clock instead of blocking.
+ * <p/>
+ * The worker ID is taken from {@link UuidConfiguration#getWorkerId()}.
+ */
+public class SnowflakeIdGenerator implements LongIdGenerator, UuidConfigurationAware {
+
+    /**
+     * Custom epoch (2020-01-01T00:00:00Z) the timestamps are relative to. 41 bits of milliseconds last for ~69 years.
+     */
+    public static final long EPOCH = 1577836800000L;
+
+    public static final int WORKER_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final AtomicLong last = new AtomicLong();
+    private long workerBits;
+
+    public SnowflakeIdGenerator() {
+        this(0);
+    }
+
+    public SnowflakeIdGenerator(int workerId) {
+        setWorkerId(workerId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void configure(UuidConfiguration configuration) {
+        setWorkerId(configuration.getWorkerId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long generateId() {
+        return toId(reserve(1));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Reserves sequence numbers for the whole batch with a single clock read and CAS.
+     */
+    @Override
+    public void generateIds(long[] target, int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        long first = reserve(count);
+        for (int i = 0; i < count; i++) {
+            target[i] = toId(first + i);
+        }
+    }
+
+    /**
+     * Reserve a range of consecutive (timestamp << 12 | sequence) values.
+     *
+     * @param count number of values to reserve.
+     * @return first reserved value.
+     */
+    private long reserve(int count) {
+        long now = System.currentTimeMillis() - EPOCH;
+
+        while (true) {
+            long previous = last.get();
+            long first;
+
+            if (now > (previous >>> SEQUENCE_BITS)) {
+                first = now << SEQUENCE_BITS;
+            } else {
+                first = previous + 1;
+            }
+
+            if (last.compareAndSet(previous, first + count - 1)) {
+                return first;
+            }
+        }
+    }
+
+    private long toId(long timeAndSequence) {
+        return ((timeAndSequence >>> SEQUENCE_BITS) << (WORKER_ID_BITS + SEQUENCE_BITS)) | workerBits | (timeAndSequence & SEQUENCE_MASK);
+    }
+
+    /**
+     * Extract the creation timestamp from an identifier.
+     *
+     * @param id identifier.
+     * @return milliseconds since Unix epoch.
+     */
+    public static long timestamp(long id) {
+        return (id >>> (WORKER_ID_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * Extract the ID of the worker that generated an identifier.
+     *
+     * @param id identifier.
+     * @return worker ID.
+     */
+    public static int workerId(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_WORKER_ID;
+    }
+
+    private void setWorkerId(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker ID must be between 0 and " + MAX_WORKER_ID + ", was " + workerId);
+        }
+
+        this.workerBits = (long) workerId << SEQUENCE_BITS;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.format.CanonicalUuidFormat;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link BinaryUuidGenerator} producing random (version 4) UUIDs from cryptographically strong random numbers,
+ * without the single shared {@link SecureRandom} behind {@link java.util.UUID#randomUUID()}.
+ * <p/>
+ * Random bytes are drawn from a fixed number of stripes, each with its own SHA1PRNG instance selected by the ID of the
+ * calling thread, so concurrently committing threads rarely contend. All stripes are seeded from the operating system
+ * when the generator is created, which is the only place where it can block on entropy. After
+ * {@link #RESEED_INTERVAL} UUIDs, a stripe mixes in fresh random bytes from the non-blocking system
+ * {@link SecureRandom}; the bytes are obtained outside the stripe lock by the thread that crossed the interval, so
+ * other threads using the stripe are not held up. The number of (re)seeds and the time spent obtaining seeds are
+ * available through {@link #getReseedCount()} and {@link #getSeedWaitNanos()}.
+ */
+public class StripedSecureRandomUuidGenerator implements BinaryUuidGenerator {
+
+    public static final int RESEED_INTERVAL = 1 << 20;
+
+    private static final int BATCH_BUFFER_UUIDS = 64;
+
+    private static final int SEED_LENGTH = 32;
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final LongAdder reseedCount = new LongAdder();
+    private final LongAdder seedWaitNanos = new LongAdder();
+
+    public StripedSecureRandomUuidGenerator() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes number of independent random number generators, rounded up to the nearest power of two.
+     */
+    public StripedSecureRandomUuidGenerator(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            long start = System.nanoTime();
+            byte[] seed = SEED_SOURCE.generateSeed(SEED_LENGTH);
+            seedWaitNanos.add(System.nanoTime() - start);
+
+            this.stripes[i] = new Stripe(seed);
+            reseedCount.increment();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String generateUuid() {
+        long[] bits = new long[2];
+        generateUuid(bits, 0);
+        return CanonicalUuidFormat.INSTANCE.format(bits[0], bits[1]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateUuid(long[] target, int offset) {
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & mask];
+        boolean reseed;
+
+        synchronized (stripe) {
+            reseed = stripe.consume(1);
+
+            stripe.random.nextBytes(stripe.buffer);
+            target[offset] = RandomUuids.version4Msb(readLong(stripe.buffer, 0));
+            target[offset + 1] = RandomUuids.version4Lsb(readLong(stripe.buffer, 8));
+        }
+
+        if (reseed) {
+            reseed(stripe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Draws the random bytes for up to {@link #BATCH_BUFFER_UUIDS} UUIDs at a time, under a single stripe lock.
+     */
+    @Override
+    public void generateUuids(long[] target, int count) {
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & mask];
+        boolean reseed = false;
+
+        synchronized (stripe) {
+            byte[] buffer = stripe.batchBuffer();
+
+            for (int done = 0; done < count; ) {
+                int batch = Math.min(BATCH_BUFFER_UUIDS, count - done);
+
+                reseed |= stripe.consume(batch);
+
+                stripe.random.nextBytes(buffer);
+                for (int i = 0; i < batch; i++, done++) {
+                    target[2 * done] = RandomUuids.version4Msb(readLong(buffer, 16 * i));
+                    target[2 * done + 1] = RandomUuids.version4Lsb(readLong(buffer, 16 * i + 8));
+                }
+            }
+        }
+
+        if (reseed) {
+            reseed(stripe);
+        }
+    }
+
+    /**
+     * @return number of times a stripe has been seeded, including the initial seeding of every stripe.
+     */
+    public long getReseedCount() {
+        return reseedCount.sum();
+    }
+
+    /**
+     * @return total time in nanoseconds spent obtaining seeds.
+     */
+    public long getSeedWaitNanos() {
+        return seedWaitNanos.sum();
+    }
+
+    /**
+     * @return number of stripes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Mix fresh random bytes into a stripe. Must be called without holding the stripe lock, which is only taken to
+     * supplement the seed.
+     */
+    private void reseed(Stripe stripe) {
+        long start = System.nanoTime();
+        byte[] seed = new byte[SEED_LENGTH];
+        SEED_SOURCE.nextBytes(seed);
+        seedWaitNanos.add(System.nanoTime() - start);
+
+        synchronized (stripe) {
+            // supplements rather than replaces the seed of an already seeded SHA1PRNG
+            stripe.random.setSeed(seed);
+        }
+        reseedCount.increment();
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = (result << 8) | (bytes[i] & 0xFF);
+        }
+        return result;
+    }
+
+    private static final class Stripe {
+
+        private final SecureRandom random;
+        private final byte[] buffer = new byte[16];
+        private byte[] batchBuffer;
+        private int remaining = RESEED_INTERVAL;
+
+        private Stripe(byte[] seed) {
+            try {
+                // SHA1PRNG doesn't seed itself when explicitly seeded before first use
+                random = SecureRandom.getInstance("SHA1PRNG");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA1PRNG is not available", e);
+            }
+            random.setSeed(seed);
+        }
+
+        /**
+         * Account for UUIDs about to be generated. Must be called with the stripe lock held.
+         *
+         * @return true iff the stripe has crossed the reseed interval and the caller must {@link #reseed(Stripe)} it.
+         */
+        private boolean consume(int uuids) {
+            remaining -= uuids;
+
+            if (remaining > 0) {
+                return false;
+            }
+
+            remaining += RESEED_INTERVAL;
+            return true;
+        }
+
+        private byte[] batchBuffer() {
+            if (batchBuffer == null) {
+                batchBuffer = new byte[16 * BATCH_BUFFER_UUIDS];
+            }
+            return batchBuffer;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.common.uuid.UuidGenerator;
+import com.graphaware.module.uuid.format.UlidUuidFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link UuidGenerator} producing <a href="https://github.com/ulid/spec">ULIDs</a>: 26 characters of Crockford's
+ * base32 encoding 48 bits of Unix epoch milliseconds followed by 80 random bits. ULIDs sort lexicographically by
+ * creation time and are 10 characters shorter than a canonical UUID.
+ * <p/>
+ * The top 16 random bits act as a counter, seeded with a random value at the start of each millisecond and incremented
+ * for every ULID generated within the same millisecond, which makes the generated ULIDs strictly monotonic within this
+ * JVM without locking. Should the counter overflow, it carries over into the timestamp.
+ * <p/>
+ * The random bits come from {@link ThreadLocalRandom}, so the generated ULIDs are not meant to be unguessable.
+ */
+public class UlidGenerator implements UuidGenerator {
+
+    public static final int LENGTH = UlidUuidFormat.LENGTH;
+
+    private static final int COUNTER_BITS = 16;
+    private static final int COUNTER_SEED_BOUND = 1 << (COUNTER_BITS - 1);
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long LOW_40_BITS = (1L << 40) - 1;
+
+    /**
+     * Last issued (timestamp << 16 | counter), shared by all instances so that monotonicity holds per JVM.
+     */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String generateUuid() {
+        long timeAndCounter = nextTimeAndCounter();
+        long random = ThreadLocalRandom.current().nextLong();
+
+        byte[] chars = new byte[LENGTH];
+        UlidUuidFormat.writeQuintets(timeAndCounter >>> COUNTER_BITS, chars, 0, 10);
+        UlidUuidFormat.writeQuintets(((timeAndCounter & COUNTER_MASK) << 24) | (random >>> 40), chars, 10, 8);
+        UlidUuidFormat.writeQuintets(random & LOW_40_BITS, chars, 18, 8);
+
+        // all characters are Latin-1, so the String is made by a single copy of the array, without decoding
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Extract the creation timestamp from a ULID.
+     *
+     * @param ulid to extract the timestamp from.
+     * @return milliseconds since Unix epoch.
+     */
+    public static long timestamp(CharSequence ulid) {
+        long timestamp = 0;
+        for (int i = 0; i < 10; i++) {
+            int quintet = UlidUuidFormat.quintet(ulid, i);
+            if (quintet < 0) {
+                throw new IllegalArgumentException("Invalid ULID character: " + ulid.charAt(i));
+            }
+            timestamp = (timestamp << 5) | quintet;
+        }
+        return timestamp;
+    }
+
+    private static long nextTimeAndCounter() {
+        long now = System.currentTimeMillis();
+
+        while (true) {
+            long last = LAST.get();
+            long next;
+
+            if (now > (last >>> COUNTER_BITS)) {
+                next = (now << COUNTER_BITS) | ThreadLocalRandom.current().nextInt(COUNTER_SEED_BOUND);
+            } else {
+                next = last + 1;
+            }
+
+            if (LAST.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+
+/**
+ * Implemented by generators that need settings from the {@link UuidConfiguration} of the module that instantiated them.
+ * {@link #configure(UuidConfiguration)} is called once, right after the generator has been instantiated and before it
+ * is first used.
+ */
+public interface UuidConfigurationAware {
+
+    /**
+     * Configure the generator.
+     *
+     * @param configuration of the module using this generator.
+     */
+    void configure(UuidConfiguration configuration);
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.common.uuid.UuidGenerator;
+import com.graphaware.module.uuid.format.CanonicalUuidFormat;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link UuidGenerator} producing time-ordered version 7 UUIDs (RFC 9562). UUIDs generated later sort after UUIDs
+ * generated earlier, both as numbers and as (lower-case, optionally hyphen-less) strings, so that inserts into an index
+ * are append-mostly and entities created around the same time are stored close to each other in the index.
+ * <p/>
+ * Layout: 48 bits of Unix epoch milliseconds, 4 version bits, a 12-bit counter, 2 variant bits and 62 random bits.
+ * The counter is seeded with a random value at the start of each millisecond and incremented for every UUID generated
+ * within the same millisecond, which makes the generated UUIDs strictly monotonic within this JVM. Should the counter
+ * overflow, it carries over into the timestamp, which then briefly runs ahead of the clock instead of blocking.
+ * <p/>
+ * The random bits come from {@link ThreadLocalRandom}, so the generator is lock-free, but its UUIDs are not meant to be
+ * unguessable.
+ */
+public class UuidV7Generator implements BinaryUuidGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final int COUNTER_SEED_BOUND = 1 << (COUNTER_BITS - 1);
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long VARIANT_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    /**
+     * Last issued (timestamp << 12 | counter), shared by all instances so that monotonicity holds per JVM.
+     */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String generateUuid() {
+        long timeAndCounter = nextTimeAndCounter();
+        long lsb = VARIANT | (ThreadLocalRandom.current().nextLong() & VARIANT_MASK);
+
+        return CanonicalUuidFormat.INSTANCE.format(mostSignificantBits(timeAndCounter), lsb);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateUuid(long[] target, int offset) {
+        target[offset] = mostSignificantBits(nextTimeAndCounter());
+        target[offset + 1] = VARIANT | (ThreadLocalRandom.current().nextLong() & VARIANT_MASK);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Reserves counter values for the whole batch with a single clock read and CAS.
+     */
+    @Override
+    public void generateUuids(long[] target, int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        long first = reserveTimeAndCounter(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < count; i++) {
+            target[2 * i] = mostSignificantBits(first + i);
+            target[2 * i + 1] = VARIANT | (random.nextLong() & VARIANT_MASK);
+        }
+    }
+
+    /**
+     * Get the lowest version 7 UUID that could have been generated in the given millisecond. Together with
+     * {@link #upperBound(long)}, this can be used to look up entities created in a time range.
+     *
+     * @param epochMillis milliseconds since Unix epoch.
+     * @return lowest UUID in canonical form.
+     */
+    public static String lowerBound(long epochMillis) {
+        return CanonicalUuidFormat.INSTANCE.format((epochMillis << 16) | VERSION, VARIANT);
+    }
+
+    /**
+     * Get the highest version 7 UUID that could have been generated in the given millisecond.
+     *
+     * @param epochMillis milliseconds since Unix epoch.
+     * @return highest UUID in canonical form.
+     */
+    public static String upperBound(long epochMillis) {
+        return CanonicalUuidFormat.INSTANCE.format((epochMillis << 16) | VERSION | COUNTER_MASK, VARIANT | VARIANT_MASK);
+    }
+
+    /**
+     * Extract the creation timestamp from a version 7 UUID in canonical or hyphen-less form.
+     *
+     * @param uuid to extract the timestamp from.
+     * @return milliseconds since Unix epoch.
+     */
+    public static long timestamp(CharSequence uuid) {
+        long timestamp = 0;
+        for (int i = 0, digits = 0; digits < 12; i++) {
+            char c = uuid.charAt(i);
+            if (c != '-') {
+                timestamp = (timestamp << 4) | Character.digit(c, 16);
+                digits++;
+            }
+        }
+        return timestamp;
+    }
+
+    static long nextTimeAndCounter() {
+        return reserveTimeAndCounter(1);
+    }
+
+    /**
+     * Reserve a range of consecutive (timestamp << 12 | counter) values.
+     *
+     * @param count number of values to reserve.
+     * @return first reserved value.
+     */
+    static long reserveTimeAndCounter(int count) {
+        long now = System.currentTimeMillis();
+
+        while (true) {
+            long last = LAST.get();
+            long first;
+
+            if (now > (last >>> COUNTER_BITS)) {
+                first = (now << COUNTER_BITS) | ThreadLocalRandom.current().nextInt(COUNTER_SEED_BOUND);
+            } else {
+                first = last + 1;
+            }
+
+            if (LAST.compareAndSet(last, first + count - 1)) {
+                return first;
+            }
+        }
+    }
+
+    static long mostSignificantBits(long timeAndCounter) {
+        return ((timeAndCounter >>> COUNTER_BITS) << 16) | VERSION | (timeAndCounter & COUNTER_MASK);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UuidBacklogTest {
+
+    @Test
+    public void recordsShouldBeReadInOrderOnceReleased() throws IOException {
+        try (UuidBacklog backlog = new UuidBacklog(Files.createTempDirectory("uuid-backlog"), 4)) {
+            UuidBacklog.Appender appender = backlog.appender();
+            appender.addNode(1);
+            appender.addRelationship(2);
+            appender.addNode(3);
+            appender.flush();
+
+            long[] ids = new long[4];
+            assertEquals(0, backlog.read(ids));
+            assertEquals(3, backlog.lag());
+
+            appender.release();
+
+            assertEquals(3, backlog.read(ids));
+            assertArrayEquals(new long[]{1, ~2L, 3}, new long[]{ids[0], ids[1], ids[2]});
+
+            backlog.markDrained();
+            assertEquals(0, backlog.lag());
+            assertEquals(0, backlog.read(ids));
+        }
+    }
+
+    @Test
+    public void backlogShouldSurviveRestartsAndDiscardTornRecords() throws IOException {
+        Path directory = Files.createTempDirectory("uuid-backlog");
+
+        try (UuidBacklog backlog = new UuidBacklog(directory, 2)) {
+            UuidBacklog.Appender appender = backlog.appender();
+            for (int i = 0; i < 5; i++) {
+                appender.addNode(i);
+            }
+            appender.flush();
+            appender.release();
+
+            backlog.read(new long[2]);
+            backlog.markDrained();
+        }
+
+        Files.write(directory.resolve(UuidBacklog.LOG_FILE), new byte[]{0, 0, 0, 2, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        try (UuidBacklog backlog = new UuidBacklog(directory, 2)) {
+            long[] ids = new long[2];
+
+            assertEquals(3, backlog.lag());
+            assertEquals(2, backlog.read(ids));
+            assertArrayEquals(new long[]{2, 3}, ids);
+        }
+    }
+
+    @Test
+    public void recordsLargerThanTheTargetShouldBeReadInParts() throws IOException {
+        Path directory = Files.createTempDirectory("uuid-backlog");
+
+        try (UuidBacklog backlog = new UuidBacklog(directory, 5)) {
+            UuidBacklog.Appender appender = backlog.appender();
+            for (int i = 0; i < 5; i++) {
+                appender.addNode(i);
+            }
+            appender.sync();
+            appender.release();
+
+            long[] ids = new long[2];
+            assertEquals(2, backlog.read(ids));
+            assertArrayEquals(new long[]{0, 1}, ids);
+            backlog.markDrained();
+            assertEquals(3, backlog.lag());
+        }
+
+        // a smaller record capacity, e.g. after the chunk size has been reduced
+        try (UuidBacklog backlog = new UuidBacklog(directory, 2)) {
+            long[] ids = new long[2];
+
+            assertEquals(3, backlog.lag());
+            assertEquals(2, backlog.read(ids));
+            assertArrayEquals(new long[]{2, 3}, ids);
+            backlog.markDrained();
+
+            assertEquals(1, backlog.read(ids));
+            assertEquals(4, ids[0]);
+            backlog.markDrained();
+
+            assertEquals(0, backlog.lag());
+            assertEquals(0, Files.size(directory.resolve(UuidBacklog.LOG_FILE)));
+        }
+    }
+
+    @Test
+    public void recordsAppendedByFailedTransactionsShouldBecomeReadableOnceReleased() throws IOException {
+        try (UuidBacklog backlog = new UuidBacklog(Files.createTempDirectory("uuid-backlog"), 1)) {
+            UuidBacklog.Appender appender = backlog.appender();
+            appender.addNode(1);
+            appender.addNode(2);
+            appender.release();
+
+            appender.addNode(3);
+            appender.sync();
+            appender.release();
+
+            long[] ids = new long[3];
+            assertEquals(3, backlog.read(ids));
+            assertArrayEquals(new long[]{1, 2, 3}, ids);
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package com.graphaware.module.uuid;
 
 import com.graphaware.common.policy.inclusion.all.IncludeAllRelationshipProperties;
+import com.graphaware.common.policy.inclusion.none.IncludeNoNodes;
+import com.graphaware.runtime.policy.all.IncludeAllBusinessRelationships;
 import com.graphaware.runtime.policy.all.IncludeAllBusinessNodes;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class UuidConfigurationTest {
 
@@ -56,4 +67,104 @@ public class UuidConfigurationTest {
 
         assertNotEquals(config1,config2);
     }
+
+    @Test
+    public void testConfigurationEqualityWithPool() {
+        UuidConfiguration config1 = UuidConfiguration.defaultConfiguration().withPool(1024, 256);
+        UuidConfiguration config2 = UuidConfiguration.defaultConfiguration().withPool(1024, 256);
+        UuidConfiguration config3 = UuidConfiguration.defaultConfiguration().withPool(1024, 128);
+
+        assertEquals(config1, config2);
+        assertNotEquals(config1, config3);
+        assertNotEquals(config1, UuidConfiguration.defaultConfiguration());
+    }
+
+    @Test
+    public void testInvalidPoolSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> UuidConfiguration.defaultConfiguration().withPool(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> UuidConfiguration.defaultConfiguration().withPool(16, 16));
+    }
+
+    @Test
+    public void testConfigurationEqualityWithStorageType() {
+        UuidConfiguration config1 = UuidConfiguration.defaultConfiguration().withStorageType(UuidStorageType.LONG).withWorkerId(3);
+        UuidConfiguration config2 = UuidConfiguration.defaultConfiguration().withStorageType(UuidStorageType.LONG).withWorkerId(3);
+
+        assertEquals(config1, config2);
+        assertNotEquals(config1, config2.withWorkerId(4));
+        assertNotEquals(config1, config2.withStorageType(UuidStorageType.STRING));
+        assertNotEquals(config1, config2.withStorageType(UuidStorageType.BINARY));
+        assertThrows(IllegalArgumentException.class, () -> config1.withWorkerId(1024));
+        assertNotEquals(config1, config2.withShardId(1));
+        assertEquals(1, config1.withShardId(1).getShardId());
+    }
+
+    @Test
+    public void stripHyphensShouldMapOntoCompactFormat() {
+        assertEquals("canonical", UuidConfiguration.defaultConfiguration().getUuidFormat());
+        assertEquals("compact", UuidConfiguration.defaultConfiguration().withStripHyphensProperty(true).getUuidFormat());
+        assertEquals("base62", UuidConfiguration.defaultConfiguration().withStripHyphensProperty(true).withUuidFormat("base62").getUuidFormat());
+        assertNotEquals(UuidConfiguration.defaultConfiguration(), UuidConfiguration.defaultConfiguration().withUuidFormat("base64url"));
+    }
+
+    @Test
+    public void testConfigurationEqualityWithNameBasedUuids() {
+        Map<String, List<String>> nameProperties = new LinkedHashMap<>();
+        nameProperties.put("Person", Arrays.asList("tenant", "email"));
+
+        UuidConfiguration config1 = UuidConfiguration.defaultConfiguration().withNameBasedUuids("6ba7b810-9dad-11d1-80b4-00c04fd430c8", nameProperties);
+        UuidConfiguration config2 = UuidConfiguration.defaultConfiguration().withNameBasedUuids("6ba7b810-9dad-11d1-80b4-00c04fd430c8", nameProperties);
+
+        nameProperties.put("Company", Collections.singletonList("registrationNumber"));
+
+        assertEquals(config1, config2);
+        assertEquals(1, config1.getNameProperties().size());
+        assertNotEquals(config1, config2.withNameBasedUuids("6ba7b811-9dad-11d1-80b4-00c04fd430c8", config2.getNameProperties()));
+        assertNotEquals(config1, config2.withNameBasedUuids("6ba7b810-9dad-11d1-80b4-00c04fd430c8", nameProperties));
+    }
+
+    @Test
+    public void excludedEntityKindsShouldBeDetected() {
+        UuidConfiguration configuration = UuidConfiguration.defaultConfiguration();
+
+        assertTrue(configuration.includesNodes());
+        assertFalse(configuration.includesRelationships());
+        assertTrue(configuration.with(IncludeAllBusinessRelationships.getInstance()).includesRelationships());
+        assertFalse(configuration.with(IncludeNoNodes.getInstance()).includesNodes());
+    }
+
+    @Test
+    public void testConfigurationEqualityWithChunkSize() {
+        assertEquals(UuidConfiguration.defaultConfiguration().withChunkSize(128), UuidConfiguration.defaultConfiguration().withChunkSize(128));
+        assertNotEquals(UuidConfiguration.defaultConfiguration(), UuidConfiguration.defaultConfiguration().withChunkSize(128));
+        assertThrows(IllegalArgumentException.class, () -> UuidConfiguration.defaultConfiguration().withChunkSize(0));
+        assertThrows(IllegalArgumentException.class, () -> UuidConfiguration.defaultConfiguration().withChunkSize(UuidConfiguration.MAX_CHUNK_SIZE + 1));
+    }
+
+    @Test
+    public void testConfigurationEqualityWithParallelThreshold() {
+        assertEquals(UuidConfiguration.defaultConfiguration().withParallelThreshold(1024), UuidConfiguration.defaultConfiguration().withParallelThreshold(1024));
+        assertNotEquals(UuidConfiguration.defaultConfiguration(), UuidConfiguration.defaultConfiguration().withParallelThreshold(1024));
+        assertThrows(IllegalArgumentException.class, () -> UuidConfiguration.defaultConfiguration().withParallelThreshold(-1));
+    }
+
+    @Test
+    public void testConfigurationEqualityWithLazyLabels() {
+        UuidConfiguration config = UuidConfiguration.defaultConfiguration().withLazyLabels(Arrays.asList("Event", "Log"));
+
+        assertEquals(config, UuidConfiguration.defaultConfiguration().withLazyLabels(Arrays.asList("Event", "Log")));
+        assertNotEquals(config, UuidConfiguration.defaultConfiguration());
+        assertTrue(config.getLazyLabels().contains("Log"));
+        assertNotEquals(config, config.withUuidValidation(true));
+        assertTrue(config.withUuidValidation(true).shouldValidateUuids());
+    }
+
+    @Test
+    public void testConfigurationEqualityWithDuplicateDetection() {
+        assertFalse(UuidConfiguration.defaultConfiguration().detectsDuplicates());
+        assertTrue(UuidConfiguration.defaultConfiguration().withDuplicateDetection(0).detectsDuplicates());
+        assertEquals(UuidConfiguration.defaultConfiguration().withDuplicateDetection(1024), UuidConfiguration.defaultConfiguration().withDuplicateDetection(1024));
+        assertNotEquals(UuidConfiguration.defaultConfiguration().withDuplicateDetection(0), UuidConfiguration.defaultConfiguration().withDuplicateDetection(1024));
+        assertThrows(IllegalArgumentException.class, () -> UuidConfiguration.defaultConfiguration().withDuplicateDetection(-1));
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.common.uuid.UuidGenerator;
+import com.graphaware.module.uuid.format.UuidFormats;
+import com.graphaware.module.uuid.generator.JavaUtilUUIDGenerator;
+import com.graphaware.module.uuid.generator.PooledUuidGenerator;
+import com.graphaware.module.uuid.generator.UlidGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidGeneratorsTest {
+
+    private final UuidConfiguration pooledConfiguration = UuidConfiguration.defaultConfiguration().withPool(64, 16);
+
+    @Test
+    public void textGeneratorsShouldBePooled() {
+        UuidGenerator generator = UuidGenerators.pooled(new UlidGenerator(), pooledConfiguration);
+
+        try {
+            assertTrue(generator instanceof PooledUuidGenerator);
+        } finally {
+            UuidGenerators.close(generator);
+        }
+    }
+
+    @Test
+    public void binaryGeneratorsShouldNotBePooled() {
+        JavaUtilUUIDGenerator generator = new JavaUtilUUIDGenerator();
+
+        assertSame(generator, UuidGenerators.pooled(generator, pooledConfiguration));
+    }
+
+    @Test
+    public void ulidsShouldBeKeptAndParsedAsUlids() {
+        UuidValueGenerator valueGenerator = UuidGenerators.valueGenerator(UuidConfiguration.defaultConfiguration(), new UlidGenerator(), null, null, getClass().getClassLoader());
+
+        Object ulid = valueGenerator.generate(null, 1)[0];
+
+        assertEquals(UlidGenerator.LENGTH, ulid.toString().length());
+        assertTrue(valueGenerator.parse(ulid, new long[2], 0));
+        valueGenerator.validate(ulid, "uuid");
+    }
+
+    @Test
+    public void ulidsFormattedInParallelShouldKeepTheOrderTheyWereGeneratedIn() {
+        UuidConfiguration configuration = UuidConfiguration.defaultConfiguration().withParallelThreshold(300);
+        UuidGenerator generator = UuidGenerators.pooled(new UlidGenerator(), pooledConfiguration);
+        ForkJoinPool parallelPool = UuidGenerators.parallelPool(configuration, "test");
+
+        try {
+            UuidValueGenerator valueGenerator = UuidGenerators.valueGenerator(configuration, generator, null, parallelPool, getClass().getClassLoader());
+
+            Object[] ulids = valueGenerator.generate(null, 1000);
+
+            for (int i = 1; i < 1000; i++) {
+                assertTrue(ulids[i - 1].toString().compareTo(ulids[i].toString()) < 0);
+            }
+        } finally {
+            UuidGenerators.close(generator);
+            UuidGenerators.close(parallelPool);
+        }
+    }
+
+    @Test
+    public void ulidsShouldBeRejectedWithIncompatibleStorageOrFormat() {
+        UuidConfiguration configuration = UuidConfiguration.defaultConfiguration();
+
+        assertThrows(IllegalArgumentException.class, () -> UuidGenerators.valueGenerator(configuration.withUuidFormat(UuidFormats.BASE62), new UlidGenerator(), null, null, getClass().getClassLoader()));
+        assertThrows(IllegalArgumentException.class, () -> UuidGenerators.valueGenerator(configuration.withStorageType(UuidStorageType.BINARY), new UlidGenerator(), null, null, getClass().getClassLoader()));
+    }
+}
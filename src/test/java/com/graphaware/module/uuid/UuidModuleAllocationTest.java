@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.common.util.Change;
+import com.graphaware.module.uuid.generator.FastRandomUuidGenerator;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the number of bytes allocated by {@link UuidModule#beforeCommit} per assigned UUID and per checked
+ * {@link Change}, measured by the per-thread allocation counters of {@link com.sun.management.ThreadMXBean}.
+ * <p/>
+ * The module is driven by map-backed dynamic proxies, so that nothing but the module (and the proxies) allocates. The
+ * argument arrays allocated by calls to the proxies, both of entities and of the transaction data, are measured upfront
+ * and subtracted. A third of the changed nodes have their UUID re-assigned to the same value and another third are
+ * assigned a label, so that the module takes every branch that doesn't end in an assignment or a rollback. Each measurement is repeated and the
+ * lowest value is taken, so that warm-up and JIT compilation don't cause false failures.
+ */
+public class UuidModuleAllocationTest {
+
+    private static final int ENTITIES = 10_000;
+    private static final int RUNS = 20;
+
+    /**
+     * A canonical UUID string (~80 bytes) plus the chunk bookkeeping, i.e. the entity's share of the per-thread
+     * {@link EntityChunk} and value buffers, which are allocated once and reused, so the remainder is slack.
+     */
+    private static final long BYTES_PER_ASSIGNED_STRING_UUID = 128;
+    private static final long BYTES_PER_ASSIGNED_BINARY_UUID = 64;
+    private static final long BYTES_PER_ASSIGNED_LONG_ID = 48;
+    private static final long BYTES_PER_CHECKED_CHANGE = 8;
+
+    private static final Label LABEL = Label.label("Person");
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Number of proxy calls made, by number of arguments.
+     */
+    private final long[] proxyCalls = new long[3];
+    private final Set<Node> uuidReassigned = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Node> labelAssigned = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long uuidReassignedAnswers;
+    private long labelAssignedAnswers;
+    private final double[] bytesPerProxyCall = new double[3];
+
+    @BeforeEach
+    public void setUp() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        Node node = entity(Node.class, new HashMap<>());
+        for (int args = 1; args <= 2; args++) {
+            long best = Long.MAX_VALUE;
+
+            for (int run = 0; run < RUNS; run++) {
+                long before = allocatedBytes();
+                for (int i = 0; i < ENTITIES; i++) {
+                    if (args == 1) {
+                        node.hasProperty("uuid");
+                    } else {
+                        node.setProperty("uuid", "value");
+                    }
+                }
+                best = Math.min(best, allocatedBytes() - before);
+            }
+
+            bytesPerProxyCall[args] = (double) best / ENTITIES;
+        }
+    }
+
+    @Test
+    public void assigningStringUuidsShouldStayWithinBudget() {
+        assertWithinBudget(UuidStorageType.STRING, BYTES_PER_ASSIGNED_STRING_UUID, createdNodes());
+    }
+
+    @Test
+    public void assigningBinaryUuidsShouldStayWithinBudget() {
+        assertWithinBudget(UuidStorageType.BINARY, BYTES_PER_ASSIGNED_BINARY_UUID, createdNodes());
+    }
+
+    @Test
+    public void assigningLongIdsShouldStayWithinBudget() {
+        assertWithinBudget(UuidStorageType.LONG, BYTES_PER_ASSIGNED_LONG_ID, createdNodes());
+    }
+
+    @Test
+    public void checkingChangesShouldStayWithinBudget() {
+        assertWithinBudget(UuidStorageType.STRING, BYTES_PER_CHECKED_CHANGE, changedNodes());
+
+        assertEquals((long) RUNS * uuidReassigned.size(), uuidReassignedAnswers);
+        assertEquals((long) RUNS * labelAssigned.size(), labelAssignedAnswers);
+    }
+
+    private void assertWithinBudget(UuidStorageType storageType, long budget, ImprovedTransactionData transactionData) {
+        UuidModule module = new UuidModule("UIDM", UuidConfiguration.defaultConfiguration()
+                .withUuidGenerator(FastRandomUuidGenerator.class.getName())
+                .withStorageType(storageType));
+        module.start(null);
+
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long[] callsBefore = proxyCalls.clone();
+            long before = allocatedBytes();
+
+            module.beforeCommit(transactionData);
+
+            long allocated = allocatedBytes() - before;
+            for (int args = 1; args <= 2; args++) {
+                allocated -= (long) ((proxyCalls[args] - callsBefore[args]) * bytesPerProxyCall[args]);
+            }
+            best = Math.min(best, allocated);
+        }
+
+        module.shutdown();
+
+        long bytesPerEntity = Math.max(0, best) / ENTITIES;
+        assertTrue(bytesPerEntity <= budget, storageType + ": " + bytesPerEntity + " bytes allocated per entity, budget is " + budget);
+    }
+
+    private ImprovedTransactionData createdNodes() {
+        List<Node> created = new ArrayList<>();
+        for (int i = 0; i < ENTITIES; i++) {
+            created.add(entity(Node.class, Collections.singletonMap("name", "node" + i)));
+        }
+        return transactionData(created, Collections.emptyList());
+    }
+
+    private ImprovedTransactionData changedNodes() {
+        List<Change<Node>> changed = new ArrayList<>();
+        for (int i = 0; i < ENTITIES; i++) {
+            Map<String, Object> previous = new HashMap<>();
+            previous.put("uuid", "6ba7b810-9dad-11d1-80b4-00c04fd430c8");
+            previous.put("name", "node" + i);
+
+            Map<String, Object> current = new HashMap<>(previous);
+            current.put("name", "changed" + i);
+
+            Node currentNode = entity(Node.class, current);
+            if (i % 3 == 1) {
+                uuidReassigned.add(currentNode);
+            } else if (i % 3 == 2) {
+                labelAssigned.add(currentNode);
+            }
+
+            changed.add(new Change<>(entity(Node.class, previous), currentNode));
+        }
+        return transactionData(Collections.emptyList(), changed);
+    }
+
+    private ImprovedTransactionData transactionData(Collection<Node> createdNodes, Collection<Change<Node>> changedNodes) {
+        Set<Label> labels = Collections.singleton(LABEL);
+
+        return (ImprovedTransactionData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ImprovedTransactionData.class}, (proxy, method, args) -> {
+            proxyCalls[args == null ? 0 : args.length]++;
+
+            switch (method.getName()) {
+                case "getAllCreatedNodes":
+                    return createdNodes;
+                case "getAllChangedNodes":
+                    return changedNodes;
+                case "hasPropertyBeenChanged":
+                    if (uuidReassigned.contains(args[0])) {
+                        uuidReassignedAnswers++;
+                        return true;
+                    }
+                    return false;
+                case "assignedLabels":
+                    if (labelAssigned.contains(args[0])) {
+                        labelAssignedAnswers++;
+                        return labels;
+                    }
+                    return Collections.emptySet();
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * Property writes are counted, but not applied, so that the same data can be processed repeatedly.
+     */
+    private <E extends Entity> E entity(Class<E> type, Map<String, Object> properties) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            proxyCalls[args == null ? 0 : args.length]++;
+
+            switch (method.getName()) {
+                case "hasProperty":
+                    return properties.containsKey(args[0]);
+                case "getProperty":
+                    Object value = properties.get(args[0]);
+                    return value != null || args.length == 1 ? value : args[1];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (Set.class.isAssignableFrom(type)) {
+            return Collections.emptySet();
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return Collections.emptyList();
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
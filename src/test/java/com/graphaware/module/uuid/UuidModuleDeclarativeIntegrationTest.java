@@ -18,6 +18,9 @@ package com.graphaware.module.uuid;
 import com.graphaware.common.uuid.EaioUuidGenerator;
 import com.graphaware.common.uuid.UuidGenerator;
 import com.graphaware.module.uuid.generator.JavaUtilUUIDGenerator;
+import com.graphaware.module.uuid.generator.NameBasedUuidGenerator;
+import com.graphaware.module.uuid.generator.SnowflakeIdGenerator;
+import com.graphaware.module.uuid.generator.UlidGenerator;
 import com.graphaware.runtime.GraphAwareRuntime;
 import com.graphaware.runtime.bootstrap.RuntimeExtensionFactory;
 import com.graphaware.runtime.policy.all.IncludeAllBusinessNodes;
@@ -32,6 +35,7 @@ import org.neo4j.harness.Neo4jBuilders;
 import org.neo4j.kernel.monitoring.DatabaseEventListeners;
 import org.neo4j.test.ReflectionUtil;
 
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -118,6 +122,32 @@ public class UuidModuleDeclarativeIntegrationTest {
         }
     }
 
+    @Test
+    public void testUuidAssignedAsynchronously() throws Exception {
+        setUpNeo4j(emptyBuilder()
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.1", "com.graphaware.module.uuid.UuidBootstrapper")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.uuidProperty", "uuid")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.backlogDirectory", Files.createTempDirectory("uuid-backlog").toString())
+        );
+
+        UuidModule module = getRuntime().getModule(UuidModule.class);
+        assertTrue(module.getConfiguration().isAsynchronous());
+
+        database.executeTransactionally("UNWIND range(1, 10) AS i CREATE (:Person {name:'Person' + i})");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (module.getBacklogLag() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, module.getBacklogLag());
+
+        try (Transaction tx = database.beginTx()) {
+            tx.findNodes(personLabel).forEachRemaining(node -> assertTrue(node.hasProperty(UUID)));
+            tx.commit();
+        }
+    }
+
     @Test
     public void testUuidCanBeChangedWhenImmutableIsFalse() {
         setUpNeo4j(emptyBuilder()
@@ -219,6 +249,30 @@ public class UuidModuleDeclarativeIntegrationTest {
         }
     }
 
+    @Test
+    public void testUnrelatedChangesDoNotAssignUuids() {
+        setUpNeo4j(emptyBuilder()
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.1", "com.graphaware.module.uuid.UuidBootstrapper")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.immutable", "false")
+        );
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'})");
+        database.executeTransactionally("MATCH (p:Person) REMOVE p.uuid");
+        database.executeTransactionally("MATCH (p:Person) SET p.name = 'Bob'");
+
+        try (Transaction tx = database.beginTx()) {
+            assertFalse(tx.findNode(personLabel, "name", "Bob").hasProperty(UUID));
+            tx.commit();
+        }
+
+        database.executeTransactionally("MATCH (p:Person) SET p:Employee");
+
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(tx.findNode(personLabel, "name", "Bob").hasProperty(UUID));
+            tx.commit();
+        }
+    }
+
     @Test
     public void testUuidsAreAssignedToNodesWithNewIncludedLabel() {
         setUpNeo4j(defaultBuilder());
@@ -280,6 +334,129 @@ public class UuidModuleDeclarativeIntegrationTest {
         }
     }
 
+    @Test
+    public void testUuidGeneratorUlid() throws Exception {
+        setUpNeo4j(emptyBuilder()
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.1", "com.graphaware.module.uuid.UuidBootstrapper")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.uuidGeneratorClass", "com.graphaware.module.uuid.generator.UlidGenerator")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.validateUuids", "true")
+        );
+
+        assertEquals(UlidGenerator.class, getGenerator().getClass());
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'}), (:Person {name:'Bob', uuid:'01ARZ3NDEKTSV4RRFFQ69G5FAV'})");
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {name:'Carol', uuid:'123e4567-e89b-12d3-a456-426614174000'})"));
+
+        try (Transaction tx = database.beginTx()) {
+            for (Node node : tx.findNodes(personLabel).stream().collect(Collectors.toList())) {
+                assertEquals(UlidGenerator.LENGTH, node.getProperty(UUID).toString().length());
+            }
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void testLongStorage() {
+        setUpNeo4j(emptyBuilder()
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.1", "com.graphaware.module.uuid.UuidBootstrapper")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.storageType", "long")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.workerId", "7")
+        );
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'}), (:Person {name:'Bob'})");
+
+        try (Transaction tx = database.beginTx()) {
+            for (Node node : tx.findNodes(personLabel).stream().collect(Collectors.toList())) {
+                Object uuid = node.getProperty(UUID);
+                assertTrue(uuid instanceof Long);
+                assertEquals(7, SnowflakeIdGenerator.workerId((Long) uuid));
+            }
+            tx.commit();
+        }
+
+        assertThrows(Exception.class, () -> database.executeTransactionally("MATCH (p:Person {name:'Alice'}) SET p.uuid = 123"));
+    }
+
+    @Test
+    public void testBinaryStorage() {
+        setUpNeo4j(emptyBuilder()
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.1", "com.graphaware.module.uuid.UuidBootstrapper")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.storageType", "binary")
+        );
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'})");
+
+        byte[] uuid;
+        try (Transaction tx = database.beginTx()) {
+            uuid = (byte[]) tx.findNode(personLabel, "name", "Alice").getProperty(UUID);
+            assertEquals(16, uuid.length);
+            tx.commit();
+        }
+
+        //setting an equal array is not a change
+        try (Transaction tx = database.beginTx()) {
+            tx.findNode(personLabel, "name", "Alice").setProperty(UUID, uuid.clone());
+            tx.commit();
+        }
+
+        byte[] changed = uuid.clone();
+        changed[15]++;
+        assertThrows(Exception.class, () -> {
+            try (Transaction tx = database.beginTx()) {
+                tx.findNode(personLabel, "name", "Alice").setProperty(UUID, changed);
+                tx.commit();
+            }
+        });
+
+        try (Transaction tx = database.beginTx()) {
+            assertArrayEquals(uuid, (byte[]) tx.findNode(personLabel, "name", "Alice").getProperty(UUID));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void testBase62Format() {
+        setUpNeo4j(emptyBuilder()
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.1", "com.graphaware.module.uuid.UuidBootstrapper")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.uuidFormat", "base62")
+        );
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(tx.findNode(personLabel, "name", "Alice").getProperty(UUID).toString().matches("[0-9A-Za-z]{22}"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void testNameBasedUuids() {
+        String namespace = "6ba7b810-9dad-11d1-80b4-00c04fd430c8";
+
+        setUpNeo4j(emptyBuilder()
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.1", "com.graphaware.module.uuid.UuidBootstrapper")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.uuidGeneratorClass", "com.graphaware.module.uuid.generator.NameBasedUuidGenerator")
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.nameNamespace", namespace)
+                .withGAConfig("com.graphaware.module.neo4j.UIDM.nameProperties", "Person:name,age")
+        );
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice', age:30}), (:Person {name:'Bob'})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(NameBasedUuidGenerator.uuid(namespace, "Person", "Alice", 30L), tx.findNode(personLabel, "name", "Alice").getProperty(UUID));
+            assertNotEquals(NameBasedUuidGenerator.uuid(namespace, "Person", "Bob"), tx.findNode(personLabel, "name", "Bob").getProperty(UUID));
+            tx.commit();
+        }
+
+        database.executeTransactionally("MATCH (n) DETACH DELETE n");
+        database.executeTransactionally("CREATE (:Person {name:'Alice', age:30})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(NameBasedUuidGenerator.uuid(namespace, "Person", "Alice", 30L), tx.findNode(personLabel, "name", "Alice").getProperty(UUID));
+            tx.commit();
+        }
+    }
+
     private UuidGenerator getGenerator() throws Exception {
         return ReflectionUtil.getPrivateField(getRuntime().getModule(UuidModule.class), "uuidGenerator", UuidGenerator.class);
     }
@@ -27,6 +27,7 @@ import org.neo4j.graphdb.*;
 import org.neo4j.harness.Neo4j;
 import org.neo4j.harness.Neo4jBuilders;
 
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -1336,6 +1337,111 @@ public class UuidModuleEmbeddedProgrammaticTest {
         }
     }
 
+    @Test
+    public void transactionsLargerThanAChunkShouldBeAssignedUuids() {
+        //Given
+        uuidConfiguration = UuidConfiguration.defaultConfiguration().withChunkSize(3).with(IncludeAllBusinessRelationships.getInstance());
+        runtime = new CommunityRuntime(database, neo4j.databaseManagementService());
+        runtime.registerModule(new UuidModule("UUIDM", uuidConfiguration));
+        runtime.start();
+
+        //When
+        try (Transaction tx = database.beginTx()) {
+            Node previous = tx.createNode(personLabel);
+            for (int i = 0; i < 10; i++) {
+                Node node = tx.createNode(personLabel);
+                previous.createRelationshipTo(node, knowsType);
+                previous = node;
+            }
+            tx.commit();
+        }
+
+        //Then
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(11, tx.getAllNodes().stream().map(node -> node.getProperty("uuid")).distinct().count());
+            assertEquals(10, tx.getAllRelationships().stream().map(relationship -> relationship.getProperty("uuid")).distinct().count());
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void duplicateUuidsShouldBeRejected() {
+        //Given
+        uuidConfiguration = UuidConfiguration.defaultConfiguration().withImmutability(false).withDuplicateDetection(1024);
+        runtime = new CommunityRuntime(database, neo4j.databaseManagementService());
+        runtime.registerModule(new UuidModule("UUIDM", uuidConfiguration));
+        runtime.start();
+
+        //When & Then
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {uuid:'123e4567-e89b-12d3-a456-426614174000'}), (:Person {uuid:'123e4567-e89b-12d3-a456-426614174000'})"));
+
+        database.executeTransactionally("CREATE (:Person {name:'p1', uuid:'123e4567-e89b-12d3-a456-426614174000'}), (:Person {name:'p2'})");
+
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {uuid:'123E4567-E89B-12D3-A456-426614174000'})"));
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("MATCH (p:Person {name:'p2'}) SET p.uuid = '123E4567-E89B-12D3-A456-426614174000'"));
+
+        database.executeTransactionally("CREATE (:Person {uuid:'123e4567-e89b-12d3-a456-426614174001'})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(3, tx.getAllNodes().stream().map(node -> node.getProperty("uuid")).distinct().count());
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void existingNodesWithoutUuidShouldOnlyBeAssignedUuidWhenLabelIsAssigned() {
+        //Given
+        database.executeTransactionally("CREATE (:Person {name:'existing'})");
+        registerModuleWithLabelsAndTypes();
+
+        //When
+        database.executeTransactionally("MATCH (p:Person) SET p.name = 'changed'");
+
+        //Then
+        try (Transaction tx = database.beginTx()) {
+            assertFalse(tx.findNodes(personLabel).next().hasProperty("uuid"));
+            tx.commit();
+        }
+
+        //When
+        database.executeTransactionally("MATCH (p:Person) SET p:Company");
+
+        //Then
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(tx.findNodes(personLabel).next().hasProperty("uuid"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void uuidsShouldBeAssignedAsynchronously() throws Exception {
+        //Given
+        uuidConfiguration = UuidConfiguration.defaultConfiguration().withAsynchronousAssignment(Files.createTempDirectory("uuid-backlog").toString());
+        runtime = new CommunityRuntime(database, neo4j.databaseManagementService());
+        UuidModule module = new UuidModule("UUIDM", uuidConfiguration);
+        runtime.registerModule(module);
+        runtime.start();
+
+        //When
+        database.executeTransactionally("UNWIND range(1, 100) AS i CREATE (:Person {name:'Person' + i})");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (module.getBacklogLag() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        //Then
+        assertEquals(0, module.getBacklogLag());
+        assertEquals(0, module.getBacklogFailures());
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(100, tx.getAllNodes().stream().map(node -> node.getProperty("uuid")).distinct().count());
+            tx.commit();
+        }
+
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("MATCH (p:Person {name:'Person1'}) SET p.uuid = 'changed'"));
+    }
+
     private void registerModuleWithNoLabels() {
         uuidConfiguration = UuidConfiguration.defaultConfiguration().withUuidProperty("uuid").with(IncludeAllBusinessRelationships.getInstance());
         runtime = new CommunityRuntime(database, neo4j.databaseManagementService());
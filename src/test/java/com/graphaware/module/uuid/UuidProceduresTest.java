@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.runtime.CommunityRuntime;
+import com.graphaware.runtime.GraphAwareRuntime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UuidProceduresTest {
+
+    private final Label eventLabel = Label.label("Event");
+    private final Label personLabel = Label.label("Person");
+
+    private Neo4j neo4j;
+    private GraphDatabaseService database;
+    private GraphAwareRuntime runtime;
+
+    @BeforeEach
+    public void setUp() {
+        neo4j = Neo4jBuilders.newInProcessBuilder().withDisabledServer().withProcedure(UuidProcedures.class).withFunction(UuidProcedures.class).build();
+        database = neo4j.defaultDatabaseService();
+
+        runtime = new CommunityRuntime(database, neo4j.databaseManagementService());
+        runtime.registerModule(new UuidModule("UUIDM", UuidConfiguration.defaultConfiguration().withLazyLabels(Collections.singleton("Event")).withUuidValidation(true)));
+        runtime.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        runtime.stop();
+        neo4j.close();
+    }
+
+    @Test
+    public void lazyNodesShouldBeAssignedUuidOnFirstRequest() {
+        database.executeTransactionally("CREATE (:Event {name:'e1'}), (:Person {name:'p1'})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertFalse(tx.findNode(eventLabel, "name", "e1").hasProperty("uuid"));
+            assertTrue(tx.findNode(personLabel, "name", "p1").hasProperty("uuid"));
+            tx.commit();
+        }
+
+        Object uuid = database.executeTransactionally("MATCH (e:Event) CALL ga.uuid.of(e) YIELD uuid RETURN uuid", Collections.emptyMap(), result -> result.next().get("uuid"));
+        Object again = database.executeTransactionally("MATCH (e:Event) CALL ga.uuid.of(e) YIELD uuid RETURN uuid", Collections.emptyMap(), result -> result.next().get("uuid"));
+
+        assertNotNull(uuid);
+        assertEquals(uuid, again);
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(uuid, tx.findNode(eventLabel, "name", "e1").getProperty("uuid"));
+            tx.commit();
+        }
+
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("MATCH (e:Event) SET e.uuid = 'changed'"));
+    }
+
+    @Test
+    public void existingUuidsShouldBeReturned() {
+        database.executeTransactionally("CREATE (:Person {name:'p1'})");
+
+        Object uuid = database.executeTransactionally("MATCH (p:Person) CALL ga.uuid.of(p) YIELD uuid RETURN uuid", Collections.emptyMap(), result -> result.next().get("uuid"));
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(tx.findNode(personLabel, "name", "p1").getProperty("uuid"), uuid);
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void generatedUuidShouldBeReturnedByTheCreatingStatement() {
+        Object uuid = database.executeTransactionally("CREATE (n:Person {name:'p1', uuid: ga.uuid.generate()}) RETURN n.uuid AS uuid", Collections.emptyMap(), result -> result.next().get("uuid"));
+
+        assertTrue(uuid.toString().matches("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}"));
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(uuid, tx.findNode(personLabel, "name", "p1").getProperty("uuid"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void deploymentsToOtherDatabasesShouldNotBeUsed() {
+        database.executeTransactionally("CREATE (:Event {name:'e1'}), (:Event {name:'e2'})");
+
+        // without a value generator, so that it would fail if it were used
+        LazyUuidAssigner other = LazyUuidAssigner.register("other", UuidConfiguration.defaultConfiguration(), null);
+        try {
+            assertNotNull(database.executeTransactionally("MATCH (e:Event {name:'e1'}) CALL ga.uuid.of(e) YIELD uuid RETURN uuid", Collections.emptyMap(), result -> result.next().get("uuid")));
+        } finally {
+            other.unregister();
+        }
+
+        assertNotNull(database.executeTransactionally("MATCH (e:Event {name:'e2'}) CALL ga.uuid.of(e) YIELD uuid RETURN uuid", Collections.emptyMap(), result -> result.next().get("uuid")));
+    }
+
+    @Test
+    public void generateShouldNotUseDeploymentsToOtherDatabases() {
+        // without a value generator, so that it would fail if it were used
+        LazyUuidAssigner other = LazyUuidAssigner.register("other", UuidConfiguration.defaultConfiguration(), null);
+        try {
+            assertNotNull(database.executeTransactionally("RETURN ga.uuid.generate() AS uuid", Collections.emptyMap(), result -> result.next().get("uuid")));
+        } finally {
+            other.unregister();
+        }
+
+        assertNotNull(database.executeTransactionally("RETURN ga.uuid.generate() AS uuid", Collections.emptyMap(), result -> result.next().get("uuid")));
+    }
+
+    @Test
+    public void invalidClientSuppliedUuidsShouldBeRejected() {
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {name:'p1', uuid: 42})"));
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {name:'p1', uuid: 'not-a-uuid'})"));
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {name:'p1', uuid: '123e4567e89b12d3a456426614174000'})"));
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {name:'p1', uuid: '123e4567-e89b-12d3-a456-42661417400g'})"));
+
+        database.executeTransactionally("CREATE (:Person {name:'p1', uuid: '123E4567-E89B-12D3-A456-426614174000'})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals("123E4567-E89B-12D3-A456-426614174000", tx.findNode(personLabel, "name", "p1").getProperty("uuid"));
+            tx.commit();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidSetTest {
+
+    @Test
+    public void setShouldBehaveLikeAHashSet() {
+        UuidSet set = new UuidSet(4);
+        Set<UUID> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            UUID uuid = new UUID(random.nextInt(200), random.nextInt(300));
+            assertEquals(expected.add(uuid), set.add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        }
+
+        assertEquals(expected.size(), set.size());
+        expected.forEach(uuid -> assertTrue(set.contains(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())));
+        assertFalse(set.contains(200, 0));
+    }
+
+    @Test
+    public void nilUuidShouldBeTrackedLikeAnyOther() {
+        UuidSet set = new UuidSet(4);
+
+        assertFalse(set.contains(0, 0));
+        assertTrue(set.add(0, 0));
+        assertFalse(set.add(0, 0));
+        assertTrue(set.contains(0, 0));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void clearedSetShouldBeEmpty() {
+        UuidSet set = new UuidSet(4);
+
+        for (int i = 0; i < 1000; i++) {
+            set.add(i, i);
+        }
+
+        set.clear();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains(0, 0));
+        assertFalse(set.contains(1, 1));
+        assertTrue(set.add(1, 1));
+    }
+
+    @Test
+    public void windowShouldRememberRecentUuidsOnly() {
+        RecentUuids recentUuids = new RecentUuids(1600);
+
+        for (long i = 1; i <= 100_000; i++) {
+            recentUuids.add(0, i);
+        }
+
+        for (long i = 100_000 - 800; i <= 100_000; i++) {
+            assertTrue(recentUuids.contains(0, i));
+        }
+
+        for (long i = 1; i <= 50_000; i++) {
+            assertFalse(recentUuids.contains(0, i));
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import com.graphaware.common.policy.inclusion.BaseNodeInclusionPolicy;
+import com.graphaware.runtime.policy.all.IncludeAllBusinessRelationships;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+public class UuidTransactionEventListenerTest {
+
+    private final Label personLabel = Label.label("Person");
+
+    private Neo4j neo4j;
+    private GraphDatabaseService database;
+    private DatabaseManagementService managementService;
+    private UuidTransactionEventListener listener;
+
+    private void setUp(UuidConfiguration configuration) {
+        neo4j = Neo4jBuilders.newInProcessBuilder().withDisabledServer().build();
+        database = neo4j.defaultDatabaseService();
+        managementService = neo4j.databaseManagementService();
+        listener = UuidTransactionEventListener.register(managementService, DEFAULT_DATABASE_NAME, configuration);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        managementService.unregisterTransactionEventListener(DEFAULT_DATABASE_NAME, listener);
+        listener.close();
+        neo4j.close();
+    }
+
+    @Test
+    public void shouldAssignUuidsToIncludedEntities() {
+        setUp(UuidConfiguration.defaultConfiguration().withStripHyphensProperty(true));
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'})-[:KNOWS]->(:Person {name:'Bob'})");
+
+        try (Transaction tx = database.beginTx()) {
+            tx.getAllNodes().forEach(node -> assertTrue(node.getProperty("uuid").toString().matches("[0-9a-f]{32}")));
+            tx.getAllRelationships().forEach(relationship -> assertFalse(relationship.hasProperty("uuid")));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldAssignUuidsToRelationshipsWhenIncluded() {
+        setUp(UuidConfiguration.defaultConfiguration().with(IncludeAllBusinessRelationships.getInstance()));
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'})-[:KNOWS]->(:Person {name:'Bob'})");
+
+        try (Transaction tx = database.beginTx()) {
+            tx.getAllRelationships().forEach(relationship -> assertTrue(relationship.hasProperty("uuid")));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldAssignUuidsToNodesWithNewIncludedLabel() {
+        setUp(UuidConfiguration.defaultConfiguration().with(new BaseNodeInclusionPolicy() {
+            @Override
+            public boolean include(Node node) {
+                return node.hasLabel(personLabel);
+            }
+        }));
+
+        database.executeTransactionally("CREATE (:Company {name:'GraphAware'})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertFalse(tx.getAllNodes().iterator().next().hasProperty("uuid"));
+            tx.commit();
+        }
+
+        database.executeTransactionally("MATCH (c:Company) SET c:Person");
+
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(tx.getAllNodes().iterator().next().hasProperty("uuid"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldNotAllowUuidsToBeChangedOrRemoved() {
+        setUp(UuidConfiguration.defaultConfiguration().with(IncludeAllBusinessRelationships.getInstance()));
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'})-[:KNOWS]->(:Person {name:'Bob'})");
+
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("MATCH (p:Person {name:'Alice'}) SET p.uuid = 'changed'"));
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("MATCH (p:Person {name:'Alice'}) REMOVE p.uuid"));
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("MATCH ()-[r:KNOWS]->() SET r.uuid = 'changed'"));
+
+        database.executeTransactionally("MATCH (p:Person {name:'Alice'}) SET p.uuid = p.uuid");
+        database.executeTransactionally("MATCH (p:Person {name:'Alice'}) DETACH DELETE p");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(1, tx.getAllNodes().stream().count());
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldAllowUuidsToBeChangedWhenMutable() {
+        setUp(UuidConfiguration.defaultConfiguration().withImmutability(false));
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'})");
+        database.executeTransactionally("MATCH (p:Person) SET p.uuid = 'changed'");
+
+        try (Transaction tx = database.beginTx()) {
+            Node node = tx.findNode(personLabel, "name", "Alice");
+            assertEquals("changed", node.getProperty("uuid"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldWriteLongIds() {
+        setUp(UuidConfiguration.defaultConfiguration().withStorageType(UuidStorageType.LONG));
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'}), (:Person {name:'Bob'})");
+
+        try (Transaction tx = database.beginTx()) {
+            tx.getAllNodes().forEach(node -> assertTrue(node.getProperty("uuid") instanceof Long));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldWriteBinaryUuids() {
+        setUp(UuidConfiguration.defaultConfiguration().withUuidProperty("id").withStorageType(UuidStorageType.BINARY));
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice'})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(Uuids.BINARY_LENGTH, ((byte[]) tx.findNode(personLabel, "name", "Alice").getProperty("id")).length);
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldValidateClientSuppliedUuids() {
+        setUp(UuidConfiguration.defaultConfiguration().withUuidFormat("base62").withUuidValidation(true));
+
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {name:'Alice', uuid:'123e4567-e89b-12d3-a456-426614174000'})"));
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {name:'Alice', uuid:'zzzzzzzzzzzzzzzzzzzzzz'})"));
+
+        database.executeTransactionally("CREATE (:Person {name:'Alice', uuid:'0YQJpYwUwvbaLOwTUr4thA'})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals("0YQJpYwUwvbaLOwTUr4thA", tx.findNode(personLabel, "name", "Alice").getProperty("uuid"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldRejectDuplicateUuids() {
+        setUp(UuidConfiguration.defaultConfiguration().withStorageType(UuidStorageType.LONG).withDuplicateDetection(0));
+
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {uuid:42}), (:Person {uuid:42})"));
+
+        // without a window, only duplicates within a transaction are detected
+        database.executeTransactionally("CREATE (:Person {name:'Alice', uuid:42}), (:Person {name:'Bob'})");
+        database.executeTransactionally("CREATE (:Person {name:'Carol', uuid:42})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(3, tx.getAllNodes().stream().filter(node -> node.getProperty("uuid") instanceof Long).count());
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldRejectRecentlyCommittedUuids() {
+        setUp(UuidConfiguration.defaultConfiguration().withStorageType(UuidStorageType.BINARY).withDuplicateDetection(1024));
+
+        database.executeTransactionally("UNWIND range(1, 100) AS i CREATE (:Person {name:'Person' + i})");
+
+        byte[] uuid;
+        try (Transaction tx = database.beginTx()) {
+            uuid = (byte[]) tx.findNode(personLabel, "name", "Person50").getProperty("uuid");
+            tx.commit();
+        }
+
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("CREATE (:Person {name:'Alice', uuid:$uuid})", Collections.singletonMap("uuid", uuid)));
+
+        try (Transaction tx = database.beginTx()) {
+            assertNull(tx.findNode(personLabel, "name", "Alice"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldAssignUuidsInChunks() {
+        setUp(UuidConfiguration.defaultConfiguration().withChunkSize(3).with(new BaseNodeInclusionPolicy() {
+            @Override
+            public boolean include(Node node) {
+                return node.hasLabel(personLabel);
+            }
+        }));
+
+        database.executeTransactionally("UNWIND range(1, 10) AS i CREATE (:Person {name:'Person' + i})");
+        database.executeTransactionally("UNWIND range(1, 4) AS i CREATE (:Company {name:'Company' + i})");
+        database.executeTransactionally("MATCH (c:Company) SET c:Person:Customer");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(14, tx.getAllNodes().stream().map(node -> node.getProperty("uuid")).distinct().count());
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldFormatUuidsInParallel() {
+        setUp(UuidConfiguration.defaultConfiguration().withUuidGenerator("com.graphaware.module.uuid.generator.UuidV7Generator").withParallelThreshold(300));
+
+        database.executeTransactionally("UNWIND range(1, 1000) AS i CREATE (:Person {name:'Person' + i})");
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(1000, tx.getAllNodes().stream().map(node -> node.getProperty("uuid")).filter(uuid -> uuid.toString().matches("[0-9a-f-]{36}")).distinct().count());
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldAssignUuidsAsynchronously() throws Exception {
+        setUp(UuidConfiguration.defaultConfiguration().withAsynchronousAssignment(Files.createTempDirectory("uuid-backlog").toString()));
+
+        database.executeTransactionally("UNWIND range(1, 100) AS i CREATE (:Person {name:'Person' + i})");
+
+        awaitDrainedBacklog();
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(100, tx.getAllNodes().stream().map(node -> node.getProperty("uuid")).distinct().count());
+            tx.commit();
+        }
+
+        assertThrows(TransactionFailureException.class, () -> database.executeTransactionally("MATCH (p:Person {name:'Person1'}) SET p.uuid = 'changed'"));
+    }
+
+    @Test
+    public void shouldReleaseBacklogWhenTransactionFailsAfterAppending() throws Exception {
+        AtomicBoolean failNext = new AtomicBoolean();
+        setUp(UuidConfiguration.defaultConfiguration()
+                .withChunkSize(1)
+                .withAsynchronousAssignment(Files.createTempDirectory("uuid-backlog").toString())
+                .with(new BaseNodeInclusionPolicy() {
+                    @Override
+                    public boolean include(Node node) {
+                        // with a chunk size of 1, every node checked before has already been appended
+                        if (node.getProperty("name").equals("second") && failNext.compareAndSet(true, false)) {
+                            throw new IllegalStateException("Failing on purpose");
+                        }
+                        return true;
+                    }
+                }));
+
+        failNext.set(true);
+        try (Transaction tx = database.beginTx()) {
+            tx.createNode(personLabel).setProperty("name", "first");
+            tx.createNode(personLabel).setProperty("name", "second");
+            assertThrows(RuntimeException.class, tx::commit);
+        }
+
+        database.executeTransactionally("CREATE (:Person {name:'third'})");
+
+        awaitDrainedBacklog();
+
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(tx.findNode(personLabel, "name", "third").hasProperty("uuid"));
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldSkipEntitiesThatRepeatedlyFailAsynchronousAssignment() throws Exception {
+        setUp(UuidConfiguration.defaultConfiguration()
+                .withAsynchronousAssignment(Files.createTempDirectory("uuid-backlog").toString())
+                .with(new BaseNodeInclusionPolicy() {
+                    @Override
+                    public boolean include(Node node) {
+                        if (node.getProperty("name").equals("poison") && Thread.currentThread().getName().startsWith("GraphAware-UUID-Backlog")) {
+                            throw new IllegalStateException("Failing on purpose");
+                        }
+                        return true;
+                    }
+                }));
+
+        database.executeTransactionally("UNWIND ['first', 'poison', 'third'] AS name CREATE (:Person {name:name})");
+
+        awaitDrainedBacklog();
+
+        assertEquals(1, listener.getBacklogFailures());
+
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(tx.findNode(personLabel, "name", "first").hasProperty("uuid"));
+            assertFalse(tx.findNode(personLabel, "name", "poison").hasProperty("uuid"));
+            assertTrue(tx.findNode(personLabel, "name", "third").hasProperty("uuid"));
+            tx.commit();
+        }
+    }
+
+    private void awaitDrainedBacklog() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (listener.getBacklogLag() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, listener.getBacklogLag());
+    }
+}
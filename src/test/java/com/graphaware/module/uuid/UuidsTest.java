@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidsTest {
+
+    @Test
+    public void shouldParseCanonicalAndCompactUuids() {
+        UUID uuid = UUID.randomUUID();
+        long[] bits = new long[3];
+
+        assertTrue(Uuids.parse(uuid.toString(), bits, 1));
+        assertEquals(uuid.getMostSignificantBits(), bits[1]);
+        assertEquals(uuid.getLeastSignificantBits(), bits[2]);
+
+        assertTrue(Uuids.parse(uuid.toString().replace("-", "").toUpperCase(), bits, 0));
+        assertEquals(uuid.getMostSignificantBits(), bits[0]);
+        assertEquals(uuid.getLeastSignificantBits(), bits[1]);
+    }
+
+    @Test
+    public void shouldRejectMalformedUuids() {
+        long[] bits = new long[2];
+
+        assertFalse(Uuids.parse("", bits, 0));
+        assertFalse(Uuids.parse("not-a-uuid", bits, 0));
+        assertFalse(Uuids.parse("123e4567-e89b-12d3-a456-42661417400", bits, 0));
+        assertFalse(Uuids.parse("123e4567e-89b-12d3-a456-426614174000", bits, 0));
+        assertFalse(Uuids.parse("123e4567-e89b-12d3-a456-42661417400g", bits, 0));
+        assertFalse(Uuids.parse("123e4567e89b12d3a456426614174\u00e900", bits, 0));
+        assertFalse(Uuids.parseCanonical("123e4567e89b12d3a456426614174000", bits, 0));
+        assertFalse(Uuids.parseCompact("123e4567-e89b-12d3-a456-426614174000", bits, 0));
+        assertFalse(Uuids.parse(new byte[Uuids.BINARY_LENGTH - 1], bits, 0));
+    }
+
+    @Test
+    public void binaryFormShouldBeBigEndian() {
+        UUID uuid = UUID.randomUUID();
+
+        byte[] bytes = Uuids.toBytes(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        assertEquals(Uuids.BINARY_LENGTH, bytes.length);
+        assertEquals(uuid.getMostSignificantBits(), buffer.getLong());
+        assertEquals(uuid.getLeastSignificantBits(), buffer.getLong());
+        assertEquals(uuid.getMostSignificantBits(), Uuids.mostSignificantBits(bytes));
+        assertEquals(uuid.getLeastSignificantBits(), Uuids.leastSignificantBits(bytes));
+
+        long[] bits = new long[2];
+        assertTrue(Uuids.parse(bytes, bits, 0));
+        assertEquals(uuid.getMostSignificantBits(), bits[0]);
+        assertEquals(uuid.getLeastSignificantBits(), bits[1]);
+    }
+}
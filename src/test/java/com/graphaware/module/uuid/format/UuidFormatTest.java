@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.format;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidFormatTest {
+
+    private static final String BASE62_ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final String CROCKFORD_ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void canonicalFormatShouldMatchJavaUtilUuid() {
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            assertEquals(uuid.toString(), CanonicalUuidFormat.INSTANCE.format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        }
+        assertEquals("some-custom-id", CanonicalUuidFormat.INSTANCE.format("some-custom-id"));
+    }
+
+    @Test
+    public void compactFormatShouldStripHyphens() {
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            String expected = uuid.toString().replace("-", "");
+            assertEquals(expected, CompactUuidFormat.INSTANCE.format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+            assertEquals(expected, CompactUuidFormat.INSTANCE.format(uuid.toString()));
+        }
+        assertEquals("somecustomid", CompactUuidFormat.INSTANCE.format("some-custom-id"));
+        assertEquals("nohyphens", CompactUuidFormat.INSTANCE.format("nohyphens"));
+    }
+
+    @Test
+    public void base64UrlFormatShouldMatchJdkEncoder() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        for (int i = 0; i < 10_000; i++) {
+            long msb = random.nextLong();
+            long lsb = random.nextLong();
+            String expected = encoder.encodeToString(ByteBuffer.allocate(16).putLong(msb).putLong(lsb).array());
+
+            assertEquals(expected, Base64UrlUuidFormat.INSTANCE.format(msb, lsb));
+            assertEquals(expected, Base64UrlUuidFormat.INSTANCE.format(new UUID(msb, lsb).toString()));
+        }
+    }
+
+    @Test
+    public void base62FormatShouldEncodeUnsignedNumber() {
+        assertEquals("0000000000000000000000", Base62UuidFormat.INSTANCE.format(0, 0));
+        assertEquals("7n42DGM5Tflk9n8mt7Fhc7", Base62UuidFormat.INSTANCE.format(-1, -1));
+
+        for (int i = 0; i < 10_000; i++) {
+            long msb = random.nextLong();
+            long lsb = random.nextLong();
+            String encoded = Base62UuidFormat.INSTANCE.format(msb, lsb);
+
+            BigInteger decoded = BigInteger.ZERO;
+            for (char c : encoded.toCharArray()) {
+                decoded = decoded.multiply(BigInteger.valueOf(62)).add(BigInteger.valueOf(BASE62_ALPHABET.indexOf(c)));
+            }
+
+            assertEquals(Base62UuidFormat.LENGTH, encoded.length());
+            assertEquals(new BigInteger(1, ByteBuffer.allocate(16).putLong(msb).putLong(lsb).array()), decoded);
+        }
+    }
+
+    @Test
+    public void base62FormatShouldPreserveOrder() {
+        assertTrue(Base62UuidFormat.INSTANCE.format(0, 61).compareTo(Base62UuidFormat.INSTANCE.format(0, 62)) < 0);
+        assertTrue(Base62UuidFormat.INSTANCE.format(1, 0).compareTo(Base62UuidFormat.INSTANCE.format(0, -1)) > 0);
+    }
+
+    @Test
+    public void ulidFormatShouldEncodeUnsignedNumberInCrockfordBase32() {
+        assertEquals("00000000000000000000000000", UlidUuidFormat.INSTANCE.format(0, 0));
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", UlidUuidFormat.INSTANCE.format(-1, -1));
+
+        for (int i = 0; i < 10_000; i++) {
+            long msb = random.nextLong();
+            long lsb = random.nextLong();
+            String encoded = UlidUuidFormat.INSTANCE.format(msb, lsb);
+
+            BigInteger decoded = BigInteger.ZERO;
+            for (char c : encoded.toCharArray()) {
+                decoded = decoded.shiftLeft(5).add(BigInteger.valueOf(CROCKFORD_ALPHABET.indexOf(c)));
+            }
+
+            assertEquals(UlidUuidFormat.LENGTH, encoded.length());
+            assertEquals(new BigInteger(1, ByteBuffer.allocate(16).putLong(msb).putLong(lsb).array()), decoded);
+        }
+
+        assertEquals("01ARZ3NDEKTSV4RRFFQ69G5FAV", UlidUuidFormat.INSTANCE.format("01ARZ3NDEKTSV4RRFFQ69G5FAV"));
+        assertEquals(UlidUuidFormat.INSTANCE.format(0x123e4567e89b12d3L, 0xa456426614174000L), UlidUuidFormat.INSTANCE.format("123e4567-e89b-12d3-a456-426614174000"));
+    }
+
+    @Test
+    public void formatsShouldParseWhatTheyFormat() {
+        long[] bits = new long[3];
+
+        for (UuidFormat format : new UuidFormat[]{CanonicalUuidFormat.INSTANCE, CompactUuidFormat.INSTANCE, Base64UrlUuidFormat.INSTANCE, Base62UuidFormat.INSTANCE, UlidUuidFormat.INSTANCE}) {
+            for (int i = 0; i < 10_000; i++) {
+                long msb = random.nextLong();
+                long lsb = random.nextLong();
+
+                assertTrue(format.parse(format.format(msb, lsb), bits, 1));
+                assertEquals(msb, bits[1]);
+                assertEquals(lsb, bits[2]);
+            }
+        }
+    }
+
+    @Test
+    public void formatsShouldRejectMalformedText() {
+        long[] bits = new long[2];
+
+        assertFalse(CanonicalUuidFormat.INSTANCE.parse("123e4567e89b12d3a456426614174000", bits, 0));
+        assertFalse(CompactUuidFormat.INSTANCE.parse("123e4567-e89b-12d3-a456-426614174000", bits, 0));
+        assertFalse(Base64UrlUuidFormat.INSTANCE.parse("Ej5FZ-ibEtOkVkJmFBdAAB", bits, 0));
+        assertFalse(Base64UrlUuidFormat.INSTANCE.parse("Ej5FZ+ibEtOkVkJmFBdAAA", bits, 0));
+        assertFalse(Base62UuidFormat.INSTANCE.parse("7n42DGM5Tflk9n8mt7Fhc8", bits, 0));
+        assertFalse(Base62UuidFormat.INSTANCE.parse("0YQJpYwUwvbaLOwTUr4th", bits, 0));
+        assertTrue(Base62UuidFormat.INSTANCE.parse("7n42DGM5Tflk9n8mt7Fhc7", bits, 0));
+        assertEquals(-1, bits[0]);
+        assertEquals(-1, bits[1]);
+
+        assertFalse(UlidUuidFormat.INSTANCE.parse("80000000000000000000000000", bits, 0));
+        assertFalse(UlidUuidFormat.INSTANCE.parse("01ARZ3NDEKTSV4RRFFQ69G5FAU", bits, 0));
+        assertFalse(UlidUuidFormat.INSTANCE.parse("01ARZ3NDEKTSV4RRFFQ69G5FA", bits, 0));
+        assertTrue(UlidUuidFormat.INSTANCE.parse("01arz3ndektsv4rrffq69g5fav", bits, 0));
+        assertEquals("01ARZ3NDEKTSV4RRFFQ69G5FAV", UlidUuidFormat.INSTANCE.format(bits[0], bits[1]));
+    }
+
+    @Test
+    public void nonUuidTextShouldNotBeReencoded() {
+        assertThrows(IllegalArgumentException.class, () -> Base62UuidFormat.INSTANCE.format("not-a-uuid"));
+    }
+
+    @Test
+    public void formatsShouldBeResolvedByName() {
+        assertSame(CanonicalUuidFormat.INSTANCE, UuidFormats.forName(UuidFormats.CANONICAL, getClass().getClassLoader()));
+        assertSame(CompactUuidFormat.INSTANCE, UuidFormats.forName(UuidFormats.COMPACT, getClass().getClassLoader()));
+        assertSame(Base64UrlUuidFormat.INSTANCE, UuidFormats.forName(UuidFormats.BASE64URL, getClass().getClassLoader()));
+        assertSame(Base62UuidFormat.INSTANCE, UuidFormats.forName(UuidFormats.BASE62, getClass().getClassLoader()));
+        assertSame(UlidUuidFormat.INSTANCE, UuidFormats.forName(UuidFormats.ULID, getClass().getClassLoader()));
+        assertThrows(RuntimeException.class, () -> UuidFormats.forName("com.example.NonExistentFormat", getClass().getClassLoader()));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameBasedUuidGeneratorTest {
+
+    private static final String DNS_NAMESPACE = "6ba7b810-9dad-11d1-80b4-00c04fd430c8";
+
+    @Test
+    public void shouldMatchRfcExample() {
+        assertEquals("2ed6657d-e927-568b-95e1-2665a8aea6a2", NameBasedUuidGenerator.uuid(DNS_NAMESPACE, "www.example.com"));
+    }
+
+    @Test
+    public void shouldJoinLabelAndValuesWithSeparator() throws Exception {
+        String expected = referenceUuid(DNS_NAMESPACE, "Person\u001Facme\u001F-42\u001Fj\u00f6rg \u4e2d\ud83d\ude00");
+
+        assertEquals(expected, NameBasedUuidGenerator.uuid(DNS_NAMESPACE, "Person", "acme", -42L, "j\u00f6rg \u4e2d\ud83d\ude00"));
+        assertEquals(expected, NameBasedUuidGenerator.uuid(DNS_NAMESPACE, "Person", "acme", -42, "j\u00f6rg \u4e2d\ud83d\ude00"));
+    }
+
+    @Test
+    public void shouldRejectArrays() {
+        assertThrows(IllegalArgumentException.class, () -> NameBasedUuidGenerator.uuid(DNS_NAMESPACE, "Person", (Object) new String[]{"a"}));
+    }
+
+    @Test
+    public void shouldRequireNamespace() {
+        NameBasedUuidGenerator generator = new NameBasedUuidGenerator();
+
+        assertThrows(IllegalStateException.class, () -> generator.configure(UuidConfiguration.defaultConfiguration()));
+        assertThrows(IllegalStateException.class, () -> generator.configure(UuidConfiguration.defaultConfiguration().withNameBasedUuids("not-a-uuid", Collections.emptyMap())));
+    }
+
+    @Test
+    public void shouldFallBackToRandomUuids() {
+        NameBasedUuidGenerator generator = new NameBasedUuidGenerator();
+        generator.configure(UuidConfiguration.defaultConfiguration().withNameBasedUuids(DNS_NAMESPACE, Collections.singletonMap("Person", Arrays.asList("name"))));
+
+        UUID uuid = UUID.fromString(generator.generateUuid());
+        assertEquals(4, uuid.version());
+        assertNotEquals(generator.generateUuid(), generator.generateUuid());
+    }
+
+    private static String referenceUuid(String namespace, String name) throws Exception {
+        UUID ns = UUID.fromString(namespace);
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+
+        for (long bits : new long[]{ns.getMostSignificantBits(), ns.getLeastSignificantBits()}) {
+            for (int i = 7; i >= 0; i--) {
+                sha1.update((byte) (bits >>> (8 * i)));
+            }
+        }
+
+        byte[] hash = sha1.digest(name.getBytes(StandardCharsets.UTF_8));
+        hash[6] = (byte) ((hash[6] & 0x0F) | 0x50);
+        hash[8] = (byte) ((hash[8] & 0x3F) | 0x80);
+
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (hash[i] & 0xFF);
+            lsb = (lsb << 8) | (hash[i + 8] & 0xFF);
+        }
+
+        return new UUID(msb, lsb).toString();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledUuidGeneratorTest {
+
+    @Test
+    public void capacityShouldBeRoundedUpToPowerOfTwo() {
+        assertEquals(1024, new PooledUuidGenerator(new JavaUtilUUIDGenerator(), 1000, 10).getCapacity());
+        assertEquals(512, new PooledUuidGenerator(new JavaUtilUUIDGenerator(), 512, 10).getCapacity());
+    }
+
+    @Test
+    public void invalidSettingsShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PooledUuidGenerator(new JavaUtilUUIDGenerator(), 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PooledUuidGenerator(new JavaUtilUUIDGenerator(), 16, 16));
+        assertThrows(IllegalArgumentException.class, () -> new PooledUuidGenerator(new JavaUtilUUIDGenerator(), 16, -1));
+    }
+
+    @Test
+    public void shouldGenerateInlineWhenPoolIsEmpty() {
+        AtomicInteger counter = new AtomicInteger();
+        PooledUuidGenerator generator = new PooledUuidGenerator(() -> "uuid-" + counter.incrementAndGet(), 16, 4);
+
+        assertEquals("uuid-1", generator.generateUuid());
+        assertEquals("uuid-2", generator.generateUuid());
+        assertEquals(0, generator.available());
+    }
+
+    @Test
+    public void shouldPreGenerateAndRefillInBackground() throws InterruptedException {
+        PooledUuidGenerator generator = new PooledUuidGenerator(new JavaUtilUUIDGenerator(), 64, 16);
+        generator.start();
+
+        try {
+            awaitAvailable(generator, 64);
+
+            for (int i = 0; i < 50; i++) {
+                assertNotNull(generator.generateUuid());
+            }
+
+            awaitAvailable(generator, 64);
+        } finally {
+            generator.close();
+        }
+    }
+
+    @Test
+    public void handedOutUuidsShouldNotBeRetainedByThePool() throws InterruptedException {
+        List<WeakReference<String>> generated = new ArrayList<>();
+        // the delegate runs dry once the pool is full, so slots of handed out UUIDs are never refilled
+        PooledUuidGenerator generator = new PooledUuidGenerator(() -> {
+            synchronized (generated) {
+                if (generated.size() == 16) {
+                    throw new IllegalStateException("No more UUIDs");
+                }
+                String uuid = new String("uuid");
+                generated.add(new WeakReference<>(uuid));
+                return uuid;
+            }
+        }, 16, 0);
+        generator.start();
+
+        try {
+            awaitAvailable(generator, 16);
+
+            assertNotNull(generator.generateUuid());
+
+            WeakReference<String> first;
+            synchronized (generated) {
+                first = generated.get(0);
+            }
+
+            for (int i = 0; i < 50 && first.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+
+            assertNull(first.get());
+            assertEquals(15, generator.available());
+        } finally {
+            generator.close();
+        }
+    }
+
+    @Test
+    public void concurrentConsumersShouldNeverReceiveTheSameUuid() throws Exception {
+        PooledUuidGenerator generator = new PooledUuidGenerator(new JavaUtilUUIDGenerator(), 256, 64);
+        generator.start();
+
+        Set<String> uuids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        assertTrue(uuids.add(generator.generateUuid()));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(80_000, uuids.size());
+        } finally {
+            executor.shutdownNow();
+            generator.close();
+        }
+    }
+
+    private void awaitAvailable(PooledUuidGenerator generator, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (generator.available() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, generator.available());
+    }
+}
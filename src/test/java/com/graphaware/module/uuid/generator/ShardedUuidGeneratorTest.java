@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+import com.graphaware.module.uuid.Uuids;
+import com.graphaware.module.uuid.format.Base62UuidFormat;
+import com.graphaware.module.uuid.format.Base64UrlUuidFormat;
+import com.graphaware.module.uuid.format.CanonicalUuidFormat;
+import com.graphaware.module.uuid.format.CompactUuidFormat;
+import com.graphaware.module.uuid.format.UuidFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedUuidGeneratorTest {
+
+    @Test
+    public void shouldGenerateVersion8Uuids() {
+        UUID uuid = UUID.fromString(generator(0).generateUuid());
+
+        assertEquals(8, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void shouldEmbedShardId() {
+        for (int shardId : new int[]{0, 1, 513, 0xABCD, ShardedUuidGenerator.MAX_SHARD_ID}) {
+            ShardedUuidGenerator generator = generator(shardId);
+
+            String canonical = generator.generateUuid();
+            UUID uuid = UUID.fromString(canonical);
+
+            assertEquals(shardId, ShardedUuidGenerator.shardId(canonical));
+            assertEquals(shardId, ShardedUuidGenerator.shardId(canonical.replace("-", "").toUpperCase()));
+            assertEquals(shardId, ShardedUuidGenerator.shardId(uuid.getLeastSignificantBits()));
+            assertEquals(shardId, ShardedUuidGenerator.shardId(Uuids.toBytes(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())));
+
+            for (UuidFormat format : new UuidFormat[]{CanonicalUuidFormat.INSTANCE, CompactUuidFormat.INSTANCE, Base62UuidFormat.INSTANCE, Base64UrlUuidFormat.INSTANCE}) {
+                assertEquals(shardId, ShardedUuidGenerator.shardId(format.format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()), format));
+            }
+        }
+    }
+
+    @Test
+    public void shouldBeMonotonicInBatches() {
+        ShardedUuidGenerator generator = generator(7);
+        long[] bits = new long[2 * 1000];
+
+        generator.generateUuids(bits, 1000);
+
+        for (int i = 1; i < 1000; i++) {
+            assertTrue(Long.compareUnsigned(bits[2 * i], bits[2 * i - 2]) > 0);
+            assertEquals(7, ShardedUuidGenerator.shardId(bits[2 * i + 1]));
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> ShardedUuidGenerator.shardId("not-a-uuid"));
+        assertThrows(IllegalArgumentException.class, () -> ShardedUuidGenerator.shardId(new byte[8]));
+        assertThrows(IllegalArgumentException.class, () -> ShardedUuidGenerator.shardId("123e4567-e89b-12d3-a456-426614174000", Base62UuidFormat.INSTANCE));
+        assertThrows(IllegalArgumentException.class, () -> UuidConfiguration.defaultConfiguration().withShardId(ShardedUuidGenerator.MAX_SHARD_ID + 1));
+    }
+
+    private static ShardedUuidGenerator generator(int shardId) {
+        ShardedUuidGenerator generator = new ShardedUuidGenerator();
+        generator.configure(UuidConfiguration.defaultConfiguration().withShardId(shardId));
+        return generator;
+    }
+}
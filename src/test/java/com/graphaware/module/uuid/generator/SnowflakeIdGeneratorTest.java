@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import com.graphaware.module.uuid.UuidConfiguration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    public void shouldEmbedTimestampAndWorkerId() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(513);
+
+        long before = System.currentTimeMillis();
+        long id = generator.generateId();
+        long after = System.currentTimeMillis();
+
+        assertTrue(id > 0);
+        assertEquals(513, SnowflakeIdGenerator.workerId(id));
+        assertTrue(SnowflakeIdGenerator.timestamp(id) >= before && SnowflakeIdGenerator.timestamp(id) <= after + 1);
+    }
+
+    @Test
+    public void shouldTakeWorkerIdFromConfiguration() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        generator.configure(UuidConfiguration.defaultConfiguration().withWorkerId(42));
+
+        assertEquals(42, SnowflakeIdGenerator.workerId(generator.generateId()));
+    }
+
+    @Test
+    public void shouldRejectInvalidWorkerIds() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+
+    @Test
+    public void shouldBeStrictlyIncreasing() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+
+        long previous = generator.generateId();
+        for (int i = 0; i < 1_000_000; i++) {
+            long next = generator.generateId();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    public void batchesShouldBeStrictlyIncreasing() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+
+        long[] batch = new long[10_000];
+        generator.generateIds(batch, batch.length);
+
+        for (int i = 1; i < batch.length; i++) {
+            assertTrue(batch[i] > batch[i - 1]);
+            assertEquals(3, SnowflakeIdGenerator.workerId(batch[i]));
+        }
+        assertTrue(generator.generateId() > batch[batch.length - 1]);
+    }
+}
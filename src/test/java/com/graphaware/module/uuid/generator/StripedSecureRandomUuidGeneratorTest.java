@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedSecureRandomUuidGeneratorTest {
+
+    @Test
+    public void shouldGenerateVersion4Uuids() {
+        StripedSecureRandomUuidGenerator generator = new StripedSecureRandomUuidGenerator();
+
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = UUID.fromString(generator.generateUuid());
+            assertEquals(4, uuid.version());
+            assertEquals(2, uuid.variant());
+        }
+
+        long[] bits = new long[2];
+        generator.generateUuid(bits, 0);
+        assertEquals(4, new UUID(bits[0], bits[1]).version());
+    }
+
+    @Test
+    public void stripesShouldBeSeededOnceUntilReseedInterval() {
+        StripedSecureRandomUuidGenerator generator = new StripedSecureRandomUuidGenerator(2);
+        assertEquals(2, generator.getReseedCount());
+        assertTrue(generator.getSeedWaitNanos() > 0);
+
+        for (int i = 0; i < 1000; i++) {
+            generator.generateUuid();
+        }
+
+        assertEquals(2, generator.getReseedCount());
+    }
+
+    @Test
+    public void stripesShouldBeReseededAfterReseedInterval() {
+        StripedSecureRandomUuidGenerator generator = new StripedSecureRandomUuidGenerator(1);
+
+        long[] batch = new long[2 * StripedSecureRandomUuidGenerator.RESEED_INTERVAL];
+        generator.generateUuids(batch, StripedSecureRandomUuidGenerator.RESEED_INTERVAL - 1);
+        assertEquals(1, generator.getReseedCount());
+
+        generator.generateUuids(batch, 1);
+        assertEquals(2, generator.getReseedCount());
+
+        generator.generateUuid(batch, 0);
+        assertEquals(4, new UUID(batch[0], batch[1]).version());
+        assertEquals(2, generator.getReseedCount());
+    }
+
+    @Test
+    public void shouldGenerateBatches() {
+        StripedSecureRandomUuidGenerator generator = new StripedSecureRandomUuidGenerator(1);
+
+        long[] batch = new long[2 * 1000];
+        generator.generateUuids(batch, 1000);
+
+        Set<UUID> uuids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = new UUID(batch[2 * i], batch[2 * i + 1]);
+            assertEquals(4, uuid.version());
+            uuids.add(uuid);
+        }
+        assertEquals(1000, uuids.size());
+    }
+
+    @Test
+    public void stripeCountShouldBePowerOfTwo() {
+        assertEquals(8, new StripedSecureRandomUuidGenerator(5).getStripeCount());
+        assertEquals(1, new StripedSecureRandomUuidGenerator(1).getStripeCount());
+    }
+
+    @Test
+    public void shouldGenerateUniqueUuidsConcurrently() throws Exception {
+        StripedSecureRandomUuidGenerator generator = new StripedSecureRandomUuidGenerator(4);
+        Set<String> uuids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        assertTrue(uuids.add(generator.generateUuid()));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(80_000, uuids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fastGeneratorShouldGenerateVersion4Uuids() {
+        FastRandomUuidGenerator generator = new FastRandomUuidGenerator();
+
+        UUID uuid = UUID.fromString(generator.generateUuid());
+        assertEquals(4, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+}
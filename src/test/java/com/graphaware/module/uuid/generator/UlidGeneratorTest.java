@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UlidGeneratorTest {
+
+    private final UlidGenerator generator = new UlidGenerator();
+
+    @Test
+    public void shouldGenerateCrockfordBase32Ulids() {
+        String ulid = generator.generateUuid();
+
+        assertEquals(UlidGenerator.LENGTH, ulid.length());
+        assertTrue(ulid.matches("[0-7][0-9A-HJKMNP-TV-Z]{25}"), ulid);
+    }
+
+    @Test
+    public void shouldEmbedCreationTime() {
+        long before = System.currentTimeMillis();
+        String ulid = generator.generateUuid();
+        long after = System.currentTimeMillis();
+
+        long timestamp = UlidGenerator.timestamp(ulid);
+        assertTrue(timestamp >= before && timestamp <= after + 1);
+    }
+
+    @Test
+    public void shouldBeMonotonic() {
+        String previous = generator.generateUuid();
+
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.generateUuid();
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            previous = next;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.graphaware.module.uuid.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidV7GeneratorTest {
+
+    private final UuidV7Generator generator = new UuidV7Generator();
+
+    @Test
+    public void shouldGenerateVersion7Uuids() {
+        UUID uuid = UUID.fromString(generator.generateUuid());
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void shouldEmbedCreationTime() {
+        long before = System.currentTimeMillis();
+        String uuid = generator.generateUuid();
+        long after = System.currentTimeMillis();
+
+        long timestamp = UuidV7Generator.timestamp(uuid);
+        assertTrue(timestamp >= before && timestamp <= after + 1);
+        assertEquals(timestamp, UuidV7Generator.timestamp(uuid.replace("-", "")));
+    }
+
+    @Test
+    public void shouldBeMonotonic() {
+        String previous = generator.generateUuid();
+
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.generateUuid();
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            assertTrue(next.replace("-", "").compareTo(previous.replace("-", "")) > 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    public void batchesShouldBeMonotonic() {
+        long[] batch = new long[2 * 5000];
+        generator.generateUuids(batch, 5000);
+
+        UUID previous = new UUID(batch[0], batch[1]);
+        for (int i = 1; i < 5000; i++) {
+            UUID next = new UUID(batch[2 * i], batch[2 * i + 1]);
+            assertEquals(7, next.version());
+            assertTrue(next.toString().compareTo(previous.toString()) > 0);
+            previous = next;
+        }
+
+        assertTrue(generator.generateUuid().compareTo(previous.toString()) > 0);
+    }
+
+    @Test
+    public void boundsShouldEncloseGeneratedUuids() {
+        long now = System.currentTimeMillis();
+        String uuid = generator.generateUuid();
+
+        assertTrue(UuidV7Generator.lowerBound(now).compareTo(uuid) <= 0);
+        assertTrue(UuidV7Generator.upperBound(System.currentTimeMillis() + 1).compareTo(uuid) > 0);
+    }
+
+    @Test
+    public void shouldGenerateUniqueUuidsConcurrently() throws Exception {
+        Set<String> uuids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        assertTrue(uuids.add(generator.generateUuid()));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(80_000, uuids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}